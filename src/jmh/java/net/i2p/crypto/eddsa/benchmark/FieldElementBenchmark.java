@@ -0,0 +1,111 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.Utils;
+import net.i2p.crypto.eddsa.math.Field;
+import net.i2p.crypto.eddsa.math.FieldElement;
+import net.i2p.crypto.eddsa.math.bigint.BigIntegerLittleEndianEncoding;
+import net.i2p.crypto.eddsa.math.ed25519.Ed25519LittleEndianEncoding;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Field arithmetic, for the limb-based and the BigInteger backends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldElementBenchmark {
+    static final byte[] Q = Utils.hexToBytes("edffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f");
+
+    @Param({"ed25519", "bigint"})
+    public String backend;
+
+    private FieldElement a;
+    private FieldElement b;
+    private byte[] encoded;
+    private Field field;
+
+    @Setup
+    public void setup() {
+        field = new Field(
+                256,
+                Q,
+                "bigint".equals(backend) ? new BigIntegerLittleEndianEncoding() : new Ed25519LittleEndianEncoding());
+        Random rnd = new Random(42);
+        a = field.fromByteArray(randomElement(rnd));
+        b = field.fromByteArray(randomElement(rnd));
+        encoded = a.toByteArray();
+    }
+
+    static byte[] randomElement(Random rnd) {
+        byte[] bytes = new byte[32];
+        rnd.nextBytes(bytes);
+        bytes[31] &= 0x7f;
+        return bytes;
+    }
+
+    @Benchmark
+    public FieldElement add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public FieldElement multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public FieldElement square() {
+        return a.square();
+    }
+
+    @Benchmark
+    public FieldElement squareAndDouble() {
+        return a.squareAndDouble();
+    }
+
+    @Benchmark
+    public FieldElement invert() {
+        return a.invert();
+    }
+
+    @Benchmark
+    public FieldElement pow22523() {
+        return a.pow22523();
+    }
+
+    @Benchmark
+    public FieldElement decode() {
+        return field.fromByteArray(encoded);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return a.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.math.Curve;
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Point decompression and the two scalar multiplications used by signing and verification.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupElementBenchmark {
+    private Curve curve;
+    private GroupElement B;
+    private GroupElement A;
+    private GroupElement negA;
+    private byte[] encodedA;
+    private byte[] a;
+    private byte[] b;
+
+    @Setup
+    public void setup() {
+        EdDSANamedCurveSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        curve = spec.getCurve();
+        B = spec.getB();
+        Random rnd = new Random(42);
+        byte[] wide = new byte[64];
+        rnd.nextBytes(wide);
+        a = spec.getScalarOps().reduce(wide);
+        rnd.nextBytes(wide);
+        b = spec.getScalarOps().reduce(wide);
+        encodedA = B.scalarMultiply(a).toByteArray();
+        A = new GroupElement(curve, encodedA, true);
+        negA = A.negate();
+    }
+
+    @Benchmark
+    public GroupElement decompress() {
+        return new GroupElement(curve, encodedA);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return A.toByteArray();
+    }
+
+    @Benchmark
+    public GroupElement scalarMultiply() {
+        return B.scalarMultiply(a);
+    }
+
+    @Benchmark
+    public GroupElement doubleScalarMultiplyVariableTime() {
+        return B.doubleScalarMultiplyVariableTime(negA, a, b);
+    }
+}
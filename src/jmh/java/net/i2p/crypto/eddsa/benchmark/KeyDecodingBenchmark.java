@@ -0,0 +1,88 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.EdDSASecurityProvider;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding of raw, X.509 and PKCS#8 keys, and derivation of a key pair from a seed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyDecodingBenchmark {
+    private EdDSAParameterSpec spec;
+    private KeyFactory keyFactory;
+    private byte[] seed;
+    private byte[] rawPublic;
+    private byte[] x509;
+    private byte[] pkcs8;
+
+    @Setup
+    public void setup() throws Exception {
+        spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        keyFactory = KeyFactory.getInstance("EdDSA", new EdDSASecurityProvider());
+        seed = new byte[32];
+        new Random(42).nextBytes(seed);
+        EdDSAPrivateKey privKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+        EdDSAPublicKey pubKey = new EdDSAPublicKey(new EdDSAPublicKeySpec(privKey.getAbyte(), spec));
+        rawPublic = pubKey.getAbyte();
+        x509 = pubKey.getEncoded();
+        pkcs8 = privKey.getEncoded();
+    }
+
+    @Benchmark
+    public EdDSAPublicKey decodeRawPublicKey() {
+        return new EdDSAPublicKey(new EdDSAPublicKeySpec(rawPublic, spec));
+    }
+
+    @Benchmark
+    public PublicKey decodeX509PublicKey() throws Exception {
+        return keyFactory.generatePublic(new X509EncodedKeySpec(x509));
+    }
+
+    @Benchmark
+    public PrivateKey decodePkcs8PrivateKey() throws Exception {
+        return keyFactory.generatePrivate(new PKCS8EncodedKeySpec(pkcs8));
+    }
+
+    @Benchmark
+    public byte[] derivePublicKeyFromSeed() {
+        return new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec)).getAbyte();
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.math.Field;
+import net.i2p.crypto.eddsa.math.ScalarOps;
+import net.i2p.crypto.eddsa.math.bigint.BigIntegerLittleEndianEncoding;
+import net.i2p.crypto.eddsa.math.bigint.BigIntegerScalarOps;
+import net.i2p.crypto.eddsa.math.ed25519.Ed25519ScalarOps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scalar reduction mod $l$ and $(ab + c) \bmod l$, for both backends.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalarOpsBenchmark {
+    static final BigInteger L = BigInteger.ONE.shiftLeft(252).add(new BigInteger("27742317777372353535851937790883648493"));
+
+    @Param({"ed25519", "bigint"})
+    public String backend;
+
+    private ScalarOps ops;
+    private byte[] wide;
+    private byte[] a;
+    private byte[] b;
+    private byte[] c;
+
+    @Setup
+    public void setup() {
+        ops = "bigint".equals(backend)
+                ? new BigIntegerScalarOps(
+                        new Field(256, FieldElementBenchmark.Q, new BigIntegerLittleEndianEncoding()), L)
+                : new Ed25519ScalarOps();
+        Random rnd = new Random(42);
+        wide = new byte[64];
+        rnd.nextBytes(wide);
+        a = ops.reduce(wide);
+        rnd.nextBytes(wide);
+        b = ops.reduce(wide);
+        rnd.nextBytes(wide);
+        c = ops.reduce(wide);
+    }
+
+    @Benchmark
+    public byte[] reduce() {
+        return ops.reduce(wide);
+    }
+
+    @Benchmark
+    public byte[] multiplyAndAdd() {
+        return ops.multiplyAndAdd(a, b, c);
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+/**
+ * Measures how signing and verification scale with the number of threads.
+ * <p>
+ * Every combination of operation (sign, verify), key sharing (one key object used
+ * by all threads, or a key per thread) and thread count is run for a fixed time.
+ * Each thread has its own engine; a shared key exercises the state the threads
+ * have in common, such as the lazily computed negated public point. Throughput
+ * and latency percentiles are printed and written as CSV or JSON, depending on
+ * the extension of the output file, so runs on different machines or versions
+ * can be compared.
+ * <p>
+ * Usage: {@code ScalingHarness [-t 1,2,4,8] [-d seconds] [-w seconds] [-o results.csv|results.json]},
+ * for example {@code mvn -P benchmark test-compile exec:java
+ * -Dexec.mainClass=net.i2p.crypto.eddsa.benchmark.ScalingHarness -Dexec.args="-o scaling.csv"}.
+ * The default thread counts are the powers of two up to the number of processors,
+ * and that number itself.
+ */
+public class ScalingHarness {
+    static final int MESSAGE_SIZE = 256;
+    // per thread; later latencies are still counted in the throughput
+    static final int MAX_SAMPLES = 1 << 18;
+
+    enum Operation {
+        SIGN,
+        VERIFY
+    }
+
+    enum Keys {
+        SHARED,
+        PER_THREAD
+    }
+
+    static final class Result {
+        final Operation operation;
+        final Keys keys;
+        final int threads;
+        final long ops;
+        final double seconds;
+        final long[] sortedLatencies;
+
+        Result(Operation operation, Keys keys, int threads, long ops, double seconds, long[] sortedLatencies) {
+            this.operation = operation;
+            this.keys = keys;
+            this.threads = threads;
+            this.ops = ops;
+            this.seconds = seconds;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        double opsPerSecond() {
+            return ops / seconds;
+        }
+
+        double percentileMicros(double q) {
+            if (sortedLatencies.length == 0) return 0;
+            int i = (int) Math.min(sortedLatencies.length - 1, Math.ceil(q * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(0, i)] / 1000.0;
+        }
+    }
+
+    private static final class Worker extends Thread {
+        final EdDSAEngine engine;
+        final Operation operation;
+        final CountDownLatch start;
+        final byte[] message = new byte[MESSAGE_SIZE];
+        final byte[] signature;
+        final long[] latencies = new long[MAX_SAMPLES];
+        volatile boolean running = true;
+        volatile boolean recording;
+        long ops;
+        int samples;
+        Exception failure;
+
+        Worker(EdDSAPrivateKey privKey, EdDSAPublicKey pubKey, Operation operation, CountDownLatch start)
+                throws Exception {
+            this.engine = new EdDSAEngine();
+            this.operation = operation;
+            this.start = start;
+            Arrays.fill(message, (byte) 0x42);
+            engine.initSign(privKey);
+            signature = engine.signOneShot(message);
+            if (operation == Operation.VERIFY) {
+                engine.initVerify(pubKey);
+            }
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+                while (running) {
+                    long t0 = System.nanoTime();
+                    if (operation == Operation.SIGN) {
+                        engine.signOneShot(message);
+                    } else if (!engine.verifyOneShot(message, signature)) {
+                        throw new IllegalStateException("signature did not verify");
+                    }
+                    long t = System.nanoTime() - t0;
+                    if (recording) {
+                        ops++;
+                        if (samples < latencies.length) latencies[samples++] = t;
+                    }
+                }
+            } catch (Exception e) {
+                failure = e;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = defaultThreadCounts(Runtime.getRuntime().availableProcessors());
+        double duration = 5;
+        double warmup = 2;
+        Path out = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                    threadCounts = Arrays.stream(args[++i].split(","))
+                            .mapToInt(Integer::parseInt)
+                            .toArray();
+                    break;
+                case "-d":
+                    duration = Double.parseDouble(args[++i]);
+                    break;
+                case "-w":
+                    warmup = Double.parseDouble(args[++i]);
+                    break;
+                case "-o":
+                    out = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        System.out.printf(
+                Locale.ROOT,
+                "%-7s %-10s %7s %12s %9s %9s %9s %9s%n",
+                "op",
+                "keys",
+                "threads",
+                "ops/s",
+                "p50 us",
+                "p90 us",
+                "p99 us",
+                "p99.9 us");
+        for (Operation operation : Operation.values()) {
+            for (Keys keys : Keys.values()) {
+                for (int threads : threadCounts) {
+                    Result r = run(operation, keys, threads, warmup, duration);
+                    results.add(r);
+                    System.out.printf(
+                            Locale.ROOT,
+                            "%-7s %-10s %7d %12.0f %9.1f %9.1f %9.1f %9.1f%n",
+                            r.operation,
+                            r.keys,
+                            r.threads,
+                            r.opsPerSecond(),
+                            r.percentileMicros(0.5),
+                            r.percentileMicros(0.9),
+                            r.percentileMicros(0.99),
+                            r.percentileMicros(0.999));
+                }
+            }
+        }
+        if (out != null) {
+            write(out, results);
+        }
+    }
+
+    static int[] defaultThreadCounts(int processors) {
+        List<Integer> counts = new ArrayList<>();
+        for (int n = 1; n < processors; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(processors);
+        return counts.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static Result run(Operation operation, Keys keys, int threads, double warmup, double duration)
+            throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        CountDownLatch start = new CountDownLatch(1);
+        Worker[] workers = new Worker[threads];
+        EdDSAPrivateKey sharedPriv = null;
+        EdDSAPublicKey sharedPub = null;
+        for (int i = 0; i < threads; i++) {
+            if (sharedPriv == null || keys == Keys.PER_THREAD) {
+                byte[] seed = new byte[32];
+                Arrays.fill(seed, (byte) i);
+                // fresh objects, so that lazily computed key state is computed under load
+                sharedPriv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+                sharedPub = new EdDSAPublicKey(new EdDSAPublicKeySpec(sharedPriv.getAbyte(), spec));
+            }
+            workers[i] = new Worker(sharedPriv, sharedPub, operation, start);
+            workers[i].start();
+        }
+        start.countDown();
+        sleep(warmup);
+        for (Worker w : workers) {
+            w.recording = true;
+        }
+        long t0 = System.nanoTime();
+        sleep(duration);
+        for (Worker w : workers) {
+            w.recording = false;
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        for (Worker w : workers) {
+            w.running = false;
+        }
+        long ops = 0;
+        int samples = 0;
+        for (Worker w : workers) {
+            w.join();
+            if (w.failure != null) throw w.failure;
+            ops += w.ops;
+            samples += w.samples;
+        }
+        long[] latencies = new long[samples];
+        int pos = 0;
+        for (Worker w : workers) {
+            System.arraycopy(w.latencies, 0, latencies, pos, w.samples);
+            pos += w.samples;
+        }
+        Arrays.sort(latencies);
+        return new Result(operation, keys, threads, ops, seconds, latencies);
+    }
+
+    private static void sleep(double seconds) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep((long) (seconds * 1000));
+    }
+
+    static void write(Path out, List<Result> results) throws IOException {
+        boolean json = out.getFileName().toString().endsWith(".json");
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            if (json) {
+                w.printf(
+                        Locale.ROOT,
+                        "{\"javaVersion\":\"%s\",\"processors\":%d,\"messageSize\":%d,\"results\":[%n",
+                        System.getProperty("java.version"),
+                        Runtime.getRuntime().availableProcessors(),
+                        MESSAGE_SIZE);
+                for (int i = 0; i < results.size(); i++) {
+                    Result r = results.get(i);
+                    w.printf(
+                            Locale.ROOT,
+                            "  {\"operation\":\"%s\",\"keys\":\"%s\",\"threads\":%d,\"ops\":%d,\"seconds\":%.3f,"
+                                    + "\"opsPerSecond\":%.1f,\"p50Micros\":%.1f,\"p90Micros\":%.1f,"
+                                    + "\"p99Micros\":%.1f,\"p999Micros\":%.1f}%s%n",
+                            r.operation,
+                            r.keys,
+                            r.threads,
+                            r.ops,
+                            r.seconds,
+                            r.opsPerSecond(),
+                            r.percentileMicros(0.5),
+                            r.percentileMicros(0.9),
+                            r.percentileMicros(0.99),
+                            r.percentileMicros(0.999),
+                            i + 1 < results.size() ? "," : "");
+                }
+                w.println("]}");
+            } else {
+                w.println("operation,keys,threads,ops,seconds,opsPerSecond,p50Micros,p90Micros,p99Micros,p999Micros");
+                for (Result r : results) {
+                    w.printf(
+                            Locale.ROOT,
+                            "%s,%s,%d,%d,%.3f,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                            r.operation,
+                            r.keys,
+                            r.threads,
+                            r.ops,
+                            r.seconds,
+                            r.opsPerSecond(),
+                            r.percentileMicros(0.5),
+                            r.percentileMicros(0.9),
+                            r.percentileMicros(0.99),
+                            r.percentileMicros(0.999));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing a batch of short messages, as batch signing and verification do, with one
+ * {@link MessageDigest} after another or with {@link MultiBufferSha512}. Results
+ * are per batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Sha512Benchmark {
+    @Param({"2", "4", "8"})
+    public int lanes;
+
+    // R || A || M for a 32 and a 128 byte message
+    @Param({"96", "192"})
+    public int messageSize;
+
+    private byte[][] messages;
+    private MessageDigest digest;
+
+    @Setup
+    public void setup() throws Exception {
+        Random rnd = new Random(42);
+        messages = new byte[lanes][messageSize];
+        for (byte[] m : messages) {
+            rnd.nextBytes(m);
+        }
+        digest = MessageDigest.getInstance("SHA-512");
+        byte[][] multi = MultiBufferSha512.digest(messages);
+        for (int i = 0; i < lanes; i++) {
+            if (!Arrays.equals(multi[i], digest.digest(messages[i]))) {
+                throw new IllegalStateException("lane " + i + " differs from MessageDigest");
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[][] messageDigest() {
+        byte[][] out = new byte[lanes][];
+        for (int i = 0; i < lanes; i++) {
+            out[i] = digest.digest(messages[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public byte[][] multiBuffer() {
+        return MultiBufferSha512.digest(messages);
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ed25519 signing and verification for several message sizes, through this library's engine
+ * or the JDK's own implementation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureBenchmark {
+    @Param({"eddsa", "jdk"})
+    public String implementation;
+
+    @Param({"32", "1024", "65536"})
+    public int messageSize;
+
+    private Signature signer;
+    private Signature verifier;
+    private byte[] message;
+    private byte[] signature;
+
+    @Setup
+    public void setup() throws Exception {
+        message = new byte[messageSize];
+        new Random(42).nextBytes(message);
+        if ("jdk".equals(implementation)) {
+            KeyPair pair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            signer = Signature.getInstance("Ed25519");
+            signer.initSign(pair.getPrivate());
+            verifier = Signature.getInstance("Ed25519");
+            verifier.initVerify(pair.getPublic());
+        } else {
+            EdDSAParameterSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+            byte[] seed = new byte[32];
+            new Random(43).nextBytes(seed);
+            EdDSAPrivateKey privKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+            EdDSAPublicKey pubKey = new EdDSAPublicKey(new EdDSAPublicKeySpec(privKey.getAbyte(), spec));
+            signer = new EdDSAEngine();
+            signer.initSign(privKey);
+            verifier = new EdDSAEngine();
+            verifier.initVerify(pubKey);
+        }
+        signer.update(message);
+        signature = signer.sign();
+    }
+
+    @Benchmark
+    public byte[] sign() throws Exception {
+        signer.update(message);
+        return signer.sign();
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        verifier.update(message);
+        return verifier.verify(signature);
+    }
+}
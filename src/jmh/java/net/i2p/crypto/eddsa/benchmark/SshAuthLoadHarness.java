@@ -0,0 +1,283 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.KeyPairGenerator;
+import net.i2p.crypto.eddsa.OpenSSHKeys;
+
+/**
+ * Simulates many SSH agents being connected at once, such as after a controller
+ * restart, without containers or sockets.
+ * <p>
+ * Each connection runs the Ed25519 part of an SSH handshake between the
+ * controller and an in-process agent stand-in:
+ * <ol>
+ * <li>the agent signs the exchange hash with its host key, and the controller
+ * decodes the host key and verifies that signature;
+ * <li>the controller signs a "publickey" SSH_MSG_USERAUTH_REQUEST (RFC 4252 section 7)
+ * with its credential, and the agent decodes the key, looks it up in its
+ * authorized_keys and verifies the signature.
+ * </ol>
+ * The key exchange itself is replaced by a random exchange hash, since it does
+ * not involve Ed25519. The controller's credential and the agents'
+ * authorized_keys are the ones used by the container tests.
+ * <p>
+ * Handshake latency includes queueing for agent threads and for the controller's
+ * pool. Controller CPU is the CPU time of the controller threads only, so that it
+ * can be used to size controllers even though the agents share the JVM.
+ * <p>
+ * Usage: {@code SshAuthLoadHarness [-n connections] [-c controller threads] [-a agent threads] [-r rounds]}.
+ * The first round is a warm-up and is reported but not meant to be compared.
+ */
+public class SshAuthLoadHarness {
+    static final String RESOURCES = "/io/jenkins/plugins/eddsa_api/ssh-agent-ed25519/ssh/";
+    static final String USER = "jenkins";
+    static final byte SSH_MSG_USERAUTH_REQUEST = 50;
+
+    static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    static final ThreadLocal<EdDSAEngine> ENGINE = ThreadLocal.withInitial(EdDSAEngine::new);
+
+    /**
+     * The agent side: an sshd with its own host key and an authorized_keys file.
+     */
+    static final class Agent {
+        final EdDSAPrivateKey hostKey;
+        final byte[] hostKeyBlob;
+        final Set<String> authorizedKeys;
+
+        Agent(KeyPair hostKey, Set<String> authorizedKeys) {
+            this.hostKey = (EdDSAPrivateKey) hostKey.getPrivate();
+            this.hostKeyBlob = blob((EdDSAPublicKey) hostKey.getPublic());
+            this.authorizedKeys = authorizedKeys;
+        }
+
+        byte[] signExchangeHash(byte[] exchangeHash) throws Exception {
+            EdDSAEngine engine = ENGINE.get();
+            engine.initSign(hostKey);
+            return engine.signOneShot(exchangeHash);
+        }
+
+        boolean authenticate(byte[] sessionId, byte[] keyBlob, byte[] signature) throws Exception {
+            if (!authorizedKeys.contains(Base64.getEncoder().encodeToString(keyBlob))) {
+                return false;
+            }
+            EdDSAPublicKey key = OpenSSHKeys.parsePublicKey(keyBlob);
+            EdDSAEngine engine = ENGINE.get();
+            engine.initVerify(key);
+            return engine.verifyOneShot(userAuthData(sessionId, keyBlob), signature);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = 500;
+        int controllerThreads = 200;
+        int agentThreads = Runtime.getRuntime().availableProcessors();
+        int rounds = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n":
+                    connections = Integer.parseInt(args[++i]);
+                    break;
+                case "-c":
+                    controllerThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "-a":
+                    agentThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "-r":
+                    rounds = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        EdDSAPrivateKey credential;
+        Set<String> authorizedKeys = new HashSet<>();
+        try (Reader r = resource("ed25519key")) {
+            credential = OpenSSHKeys.parsePrivateKey(r);
+        }
+        try (Reader r = resource("authorized_keys")) {
+            for (EdDSAPublicKey key : OpenSSHKeys.parseAuthorizedKeys(r)) {
+                authorizedKeys.add(Base64.getEncoder().encodeToString(blob(key)));
+            }
+        }
+        KeyPair[] hostKeys = new KeyPairGenerator().generateKeyPairs(connections);
+        List<Agent> agents = new ArrayList<>(connections);
+        for (KeyPair hostKey : hostKeys) {
+            agents.add(new Agent(hostKey, authorizedKeys));
+        }
+
+        ExecutorService controller = Executors.newFixedThreadPool(controllerThreads);
+        ExecutorService agentPool = Executors.newFixedThreadPool(agentThreads);
+        try {
+            System.out.printf(
+                    Locale.ROOT,
+                    "%5s %11s %9s %9s %9s %9s %9s %14s%n",
+                    "round",
+                    "connections",
+                    "wall ms",
+                    "p50 ms",
+                    "p90 ms",
+                    "p99 ms",
+                    "max ms",
+                    "ctrl CPU us/op");
+            for (int round = 0; round < rounds; round++) {
+                runRound(round, credential, agents, controller, agentPool);
+            }
+        } finally {
+            controller.shutdown();
+            agentPool.shutdown();
+        }
+    }
+
+    private static void runRound(
+            int round,
+            EdDSAPrivateKey credential,
+            List<Agent> agents,
+            ExecutorService controller,
+            ExecutorService agentPool)
+            throws Exception {
+        byte[] credentialBlob = blob(credential);
+        SecureRandom random = new SecureRandom();
+        AtomicLong controllerCpu = new AtomicLong();
+        List<Future<Long>> handshakes = new ArrayList<>(agents.size());
+        long start = System.nanoTime();
+        for (Agent agent : agents) {
+            byte[] exchangeHash = new byte[32];
+            random.nextBytes(exchangeHash);
+            handshakes.add(controller.submit(() -> {
+                long t0 = System.nanoTime();
+                long cpu = 0;
+
+                byte[] hostSig = agentPool
+                        .submit(() -> agent.signExchangeHash(exchangeHash))
+                        .get();
+
+                long c0 = THREADS.getCurrentThreadCpuTime();
+                EdDSAPublicKey hostKey = OpenSSHKeys.parsePublicKey(agent.hostKeyBlob);
+                EdDSAEngine engine = ENGINE.get();
+                engine.initVerify(hostKey);
+                if (!engine.verifyOneShot(exchangeHash, hostSig)) {
+                    throw new IllegalStateException("host key signature did not verify");
+                }
+                engine.initSign(credential);
+                byte[] authSig = engine.signOneShot(userAuthData(exchangeHash, credentialBlob));
+                cpu += THREADS.getCurrentThreadCpuTime() - c0;
+
+                boolean accepted = agentPool
+                        .submit(() -> agent.authenticate(exchangeHash, credentialBlob, authSig))
+                        .get();
+                if (!accepted) {
+                    throw new IllegalStateException("publickey authentication failed");
+                }
+                controllerCpu.addAndGet(cpu);
+                return System.nanoTime() - t0;
+            }));
+        }
+        long[] latencies = new long[handshakes.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = handshakes.get(i).get();
+        }
+        long wall = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        System.out.printf(
+                Locale.ROOT,
+                "%5d %11d %9.1f %9.1f %9.1f %9.1f %9.1f %14.1f%n",
+                round,
+                latencies.length,
+                wall / 1e6,
+                percentile(latencies, 0.5) / 1e6,
+                percentile(latencies, 0.9) / 1e6,
+                percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6,
+                controllerCpu.get() / 1e3 / latencies.length);
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        return sorted[(int) Math.max(0, Math.ceil(q * sorted.length) - 1)];
+    }
+
+    /**
+     * @return the data signed for a "publickey" authentication request, RFC 4252 section 7
+     */
+    static byte[] userAuthData(byte[] sessionId, byte[] keyBlob) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + keyBlob.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, sessionId);
+        out.writeByte(SSH_MSG_USERAUTH_REQUEST);
+        writeString(out, USER.getBytes(StandardCharsets.UTF_8));
+        writeString(out, "ssh-connection".getBytes(StandardCharsets.US_ASCII));
+        writeString(out, "publickey".getBytes(StandardCharsets.US_ASCII));
+        out.writeBoolean(true);
+        writeString(out, "ssh-ed25519".getBytes(StandardCharsets.US_ASCII));
+        writeString(out, keyBlob);
+        return bytes.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, byte[] s) throws IOException {
+        out.writeInt(s.length);
+        out.write(s);
+    }
+
+    static byte[] blob(EdDSAPublicKey key) {
+        return blob(key.getAbyte());
+    }
+
+    static byte[] blob(EdDSAPrivateKey key) {
+        return blob(key.getAbyte());
+    }
+
+    private static byte[] blob(byte[] pk) {
+        byte[] type = "ssh-ed25519".getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocate(8 + type.length + pk.length)
+                .putInt(type.length)
+                .put(type)
+                .putInt(pk.length)
+                .put(pk)
+                .array();
+    }
+
+    private static Reader resource(String name) throws IOException {
+        InputStream in = SshAuthLoadHarness.class.getResourceAsStream(RESOURCES + name);
+        if (in == null) {
+            throw new IOException("Missing test resource " + RESOURCES + name);
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package io.jenkins.plugins.eddsa_api;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.EdDSASecurityProvider;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+/**
+ * Warms up the EdDSA code on a background thread while Jenkins starts, so that the first agent connection after a
+ * restart does not pay for the curve table precomputation and the cold JIT of the field arithmetic.
+ * Set {@code io.jenkins.plugins.eddsa_api.CryptoWarmup.disabled=true} to turn the warm-up off.
+ * The same thread first picks the digest providers, once every plugin has registered its own, and, when
+ * engines start in native mode, times the JDK's Ed25519 against ours.
+ */
+public class CryptoWarmup {
+    private static final Logger LOGGER = Logger.getLogger(CryptoWarmup.class.getName());
+
+    static final boolean DISABLED = SystemProperties.getBoolean(CryptoWarmup.class.getName() + ".disabled");
+
+    static final int ITERATIONS =
+            SystemProperties.getInteger(CryptoWarmup.class.getName() + ".iterations", 200);
+
+    // runs after FIPSComplianceCheck, which must reject FIPS mode before any EdDSA code is touched
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void start() {
+        Thread t = new Thread(CryptoWarmup::run, "EdDSA warm-up");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    private static void run() {
+        EdDSASecurityProvider.selectDigestProviders();
+        if (EdDSASecurityProvider.isNativeByDefault()) {
+            EdDSASecurityProvider.selectNativeOperations();
+        }
+        if (DISABLED) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            long first = warmUp(ITERATIONS);
+            LOGGER.log(Level.INFO, "EdDSA warm-up finished in {0} ms, time to first signature {1} ms", new Object[] {
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), TimeUnit.NANOSECONDS.toMillis(first)
+            });
+        } catch (GeneralSecurityException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "EdDSA warm-up failed", e);
+        }
+    }
+
+    /**
+     * Signs and verifies with a throwaway key.
+     *
+     * @param iterations the number of sign/verify rounds after the first signature
+     * @return the time taken to produce the first signature, including the curve table setup, in nanoseconds
+     */
+    static long warmUp(int iterations) throws GeneralSecurityException {
+        long start = System.nanoTime();
+        EdDSANamedCurveSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        byte[] seed = new byte[32];
+        Arrays.fill(seed, (byte) 0x5a);
+        EdDSAPrivateKey privKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+        EdDSAPublicKey pubKey = new EdDSAPublicKey(new EdDSAPublicKeySpec(privKey.getA(), spec));
+        EdDSAEngine signer = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        EdDSAEngine verifier = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        byte[] message = new byte[64];
+
+        signer.initSign(privKey);
+        signer.update(message);
+        byte[] sig = signer.sign();
+        long first = System.nanoTime() - start;
+
+        for (int i = 0; i < iterations; i++) {
+            message[i % message.length]++;
+            signer.update(message);
+            sig = signer.sign();
+            verifier.initVerify(pubKey);
+            verifier.update(message);
+            if (!verifier.verify(sig)) {
+                throw new IllegalStateException("EdDSA warm-up signature did not verify");
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,53 @@
+package io.jenkins.plugins.eddsa_api;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import jenkins.metrics.api.MetricProvider;
+import net.i2p.crypto.eddsa.EdDSAMetrics;
+
+/**
+ * Publishes the library's metrics to the Metrics plugin, when it is installed.
+ */
+@Extension(optional = true)
+public class EdDSAMetricProvider extends MetricProvider {
+    private final MetricSet metrics;
+
+    public EdDSAMetricProvider() {
+        Map<String, Metric> m = new LinkedHashMap<>();
+        addTimer(m, "eddsa-api.sign", EdDSAMetrics.sign());
+        addTimer(m, "eddsa-api.verify", EdDSAMetrics.verify());
+        m.put("eddsa-api.verify.failures", (Gauge<Long>) EdDSAMetrics::getVerifyFailures);
+        for (EdDSAMetrics.Rejection reason : EdDSAMetrics.Rejection.values()) {
+            m.put(
+                    "eddsa-api.verify.rejected." + reason.name().toLowerCase(Locale.ENGLISH).replace('_', '-'),
+                    (Gauge<Long>) () -> EdDSAMetrics.getRejections(reason));
+        }
+        addTimer(m, "eddsa-api.key.decode", EdDSAMetrics.keyDecode());
+        addTimer(m, "eddsa-api.key.derive", EdDSAMetrics.keyDerive());
+        m.put("eddsa-api.verification-cache.hits", (Gauge<Long>) EdDSAMetrics::getCacheHits);
+        m.put("eddsa-api.verification-cache.misses", (Gauge<Long>) EdDSAMetrics::getCacheMisses);
+        Map<String, Metric> unmodifiable = Collections.unmodifiableMap(m);
+        metrics = () -> unmodifiable;
+    }
+
+    private static void addTimer(Map<String, Metric> m, String prefix, EdDSAMetrics.Timer timer) {
+        m.put(prefix + ".count", (Gauge<Long>) timer::getCount);
+        m.put(prefix + ".total-nanos", (Gauge<Long>) timer::getTotalNanos);
+        m.put(prefix + ".mean-nanos", (Gauge<Long>) timer::getMeanNanos);
+        m.put(prefix + ".p50-nanos", (Gauge<Long>) () -> timer.getQuantileNanos(0.5));
+        m.put(prefix + ".p99-nanos", (Gauge<Long>) () -> timer.getQuantileNanos(0.99));
+    }
+
+    @NonNull
+    @Override
+    public MetricSet getMetricSet() {
+        return metrics;
+    }
+}
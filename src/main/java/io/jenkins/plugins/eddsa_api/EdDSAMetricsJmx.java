@@ -0,0 +1,133 @@
+package io.jenkins.plugins.eddsa_api;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import net.i2p.crypto.eddsa.EdDSAMetrics;
+
+/**
+ * Exposes the library's metrics over JMX, so that the controller CPU spent on EdDSA can be monitored.
+ */
+public class EdDSAMetricsJmx implements EdDSAMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(EdDSAMetricsJmx.class.getName());
+
+    public static final String OBJECT_NAME = "io.jenkins.plugins.eddsa_api:type=EdDSAMetrics";
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new EdDSAMetricsJmx(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register EdDSA metrics MBean", e);
+        }
+    }
+
+    @Terminator
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.FINE, "Failed to unregister EdDSA metrics MBean", e);
+        }
+    }
+
+    @Override
+    public long getSignCount() {
+        return EdDSAMetrics.sign().getCount();
+    }
+
+    @Override
+    public long getSignTotalNanos() {
+        return EdDSAMetrics.sign().getTotalNanos();
+    }
+
+    @Override
+    public long getSignMedianNanos() {
+        return EdDSAMetrics.sign().getQuantileNanos(0.5);
+    }
+
+    @Override
+    public long getSign99thPercentileNanos() {
+        return EdDSAMetrics.sign().getQuantileNanos(0.99);
+    }
+
+    @Override
+    public long getVerifyCount() {
+        return EdDSAMetrics.verify().getCount();
+    }
+
+    @Override
+    public long getVerifyFailures() {
+        return EdDSAMetrics.getVerifyFailures();
+    }
+
+    @Override
+    public Map<String, Long> getVerifyRejections() {
+        Map<String, Long> rejections = new LinkedHashMap<>();
+        for (EdDSAMetrics.Rejection reason : EdDSAMetrics.Rejection.values()) {
+            rejections.put(reason.name(), EdDSAMetrics.getRejections(reason));
+        }
+        return rejections;
+    }
+
+    @Override
+    public long getVerifyTotalNanos() {
+        return EdDSAMetrics.verify().getTotalNanos();
+    }
+
+    @Override
+    public long getVerifyMedianNanos() {
+        return EdDSAMetrics.verify().getQuantileNanos(0.5);
+    }
+
+    @Override
+    public long getVerify99thPercentileNanos() {
+        return EdDSAMetrics.verify().getQuantileNanos(0.99);
+    }
+
+    @Override
+    public long getKeyDecodeCount() {
+        return EdDSAMetrics.keyDecode().getCount();
+    }
+
+    @Override
+    public long getKeyDecodeTotalNanos() {
+        return EdDSAMetrics.keyDecode().getTotalNanos();
+    }
+
+    @Override
+    public long getKeyDeriveCount() {
+        return EdDSAMetrics.keyDerive().getCount();
+    }
+
+    @Override
+    public long getKeyDeriveTotalNanos() {
+        return EdDSAMetrics.keyDerive().getTotalNanos();
+    }
+
+    @Override
+    public long getVerificationCacheHits() {
+        return EdDSAMetrics.getCacheHits();
+    }
+
+    @Override
+    public long getVerificationCacheMisses() {
+        return EdDSAMetrics.getCacheMisses();
+    }
+}
@@ -0,0 +1,44 @@
+package io.jenkins.plugins.eddsa_api;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link net.i2p.crypto.eddsa.EdDSAMetrics}, registered as {@link EdDSAMetricsJmx#OBJECT_NAME}.
+ * Times are in nanoseconds; quantiles are upper bounds within a factor of two.
+ */
+public interface EdDSAMetricsMXBean {
+    long getSignCount();
+
+    long getSignTotalNanos();
+
+    long getSignMedianNanos();
+
+    long getSign99thPercentileNanos();
+
+    long getVerifyCount();
+
+    long getVerifyFailures();
+
+    /**
+     * @return failures that were turned away without verifying, by {@link net.i2p.crypto.eddsa.EdDSAMetrics.Rejection}
+     */
+    Map<String, Long> getVerifyRejections();
+
+    long getVerifyTotalNanos();
+
+    long getVerifyMedianNanos();
+
+    long getVerify99thPercentileNanos();
+
+    long getKeyDecodeCount();
+
+    long getKeyDecodeTotalNanos();
+
+    long getKeyDeriveCount();
+
+    long getKeyDeriveTotalNanos();
+
+    long getVerificationCacheHits();
+
+    long getVerificationCacheMisses();
+}
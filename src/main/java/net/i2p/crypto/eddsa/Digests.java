@@ -0,0 +1,143 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Source of the message digests used for EdDSA.
+ *<p>
+ * Until {@link #select()} has run, every request goes to
+ * MessageDigest.getInstance(), so the JCA provider order is honoured and
+ * providers registered later are seen. select() picks a provider for each
+ * algorithm once, off the request path, and keeps a prototype that later
+ * requests clone, which avoids the provider lookup. The pick is the most
+ * preferred provider, or the fastest one if
+ * {@link EdDSASecurityProvider#DIGEST_BENCHMARK_PROPERTY} is set.
+ *</p>
+ */
+final class Digests {
+    private static final Logger LOGGER = Logger.getLogger(Digests.class.getName());
+
+    /**
+     * The algorithms that select() picks providers for.
+     */
+    static final String[] ALGORITHMS = {"SHA-512", "SHA-256"};
+
+    private static final int WARMUP_ROUNDS = 2000;
+    private static final int TIMED_ROUNDS = 4000;
+
+    private static final ConcurrentHashMap<String, MessageDigest> prototypes =
+            new ConcurrentHashMap<String, MessageDigest>();
+
+    private Digests() {}
+
+    /**
+     * @param algorithm the JCA name of the digest
+     * @return a new digest of the algorithm, from the selected provider if
+     *         select() has run, otherwise from the most preferred one
+     * @throws NoSuchAlgorithmException if no provider supports the algorithm
+     */
+    static MessageDigest newDigest(String algorithm) throws NoSuchAlgorithmException {
+        MessageDigest prototype = prototypes.get(algorithm);
+        return prototype != null ? copy(prototype) : MessageDigest.getInstance(algorithm);
+    }
+
+    /**
+     * Picks the provider of each of {@link #ALGORITHMS}, replacing any earlier
+     * pick. Slow if benchmarking is enabled.
+     */
+    static void select() {
+        boolean benchmark = Boolean.getBoolean(EdDSASecurityProvider.DIGEST_BENCHMARK_PROPERTY);
+        for (String algorithm : ALGORITHMS) {
+            try {
+                MessageDigest md = benchmark ? fastest(algorithm) : MessageDigest.getInstance(algorithm);
+                prototypes.put(algorithm, md);
+                LOGGER.log(Level.FINE, "Using {0} from {1}", new Object[] {algorithm, md.getProvider().getName()});
+            } catch (NoSuchAlgorithmException e) {
+                prototypes.remove(algorithm);
+                LOGGER.log(Level.FINE, "No provider of " + algorithm, e);
+            }
+        }
+    }
+
+    /**
+     * For tests: forget the selection.
+     */
+    static void clear() {
+        prototypes.clear();
+    }
+
+    /**
+     * @return a copy of the digest and its state, or a new instance from
+     *         the same provider if it cannot be cloned
+     */
+    static MessageDigest copy(MessageDigest md) throws NoSuchAlgorithmException {
+        try {
+            return (MessageDigest) md.clone();
+        } catch (CloneNotSupportedException e) {
+            return MessageDigest.getInstance(md.getAlgorithm(), md.getProvider());
+        }
+    }
+
+    /**
+     * @return the provider that hashes short inputs like those hashed when
+     *         signing fastest, the more preferred on a tie
+     */
+    private static MessageDigest fastest(String algorithm) throws NoSuchAlgorithmException {
+        Provider[] providers = Security.getProviders("MessageDigest." + algorithm);
+        if (providers == null || providers.length < 2) return MessageDigest.getInstance(algorithm);
+
+        MessageDigest best = null;
+        long bestTime = Long.MAX_VALUE;
+        byte[] input = new byte[128];
+        byte[] output = new byte[128];
+        for (Provider provider : providers) {
+            try {
+                MessageDigest md = MessageDigest.getInstance(algorithm, provider);
+                // Only cloneable digests are any use as a prototype
+                md.clone();
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    md.update(input);
+                    md.digest(output, 0, md.getDigestLength());
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < TIMED_ROUNDS; i++) {
+                    md.update(input);
+                    md.digest(output, 0, md.getDigestLength());
+                }
+                long time = System.nanoTime() - start;
+                LOGGER.log(Level.FINE, "{0} from {1} took {2} ns per digest", new Object[] {
+                    algorithm, provider.getName(), time / TIMED_ROUNDS
+                });
+                if (time < bestTime) {
+                    best = md;
+                    bestTime = time;
+                }
+            } catch (CloneNotSupportedException e) {
+                LOGGER.log(Level.FINE, "Skipping {0} from {1}, which cannot be cloned", new Object[] {
+                    algorithm, provider.getName()
+                });
+            } catch (GeneralSecurityException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Skipping " + algorithm + " from " + provider.getName(), e);
+            }
+        }
+        return best != null ? best : MessageDigest.getInstance(algorithm);
+    }
+}
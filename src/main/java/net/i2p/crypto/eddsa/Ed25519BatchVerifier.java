@@ -0,0 +1,407 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.i2p.crypto.eddsa.EdDSAMetrics.Rejection;
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.math.ScalarOps;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+
+/**
+ * Asynchronous Ed25519 verification for many concurrent callers.
+ *<p>
+ * Requests are collected into batches of up to maxBatch, waiting at most
+ * the latency window for a batch to fill, and each batch is verified on one
+ * of a fixed number of worker threads. Under load batches fill immediately
+ * and the window adds no latency.
+ *</p><p>
+ * The signatures of a batch are checked together with one random linear
+ * combination of their verification equations, which shares the point
+ * doublings between all of them and needs no field inversion per signature.
+ * For batches of 16 or more this takes about half the time of verifying them
+ * one by one with {@link EdDSAEngine}, and less when signatures share a key.
+ * If the combined check fails, each signature of the batch is checked on its
+ * own to find the bad ones, so a batch holding an invalid signature costs
+ * somewhat more than verifying it one by one.
+ *</p><p>
+ * Every Ed25519 signature, whether checked in a batch or on its own, is held
+ * to the cofactored equation [8][S]B = [8]R + [8][k]A that RFC 8032 section
+ * 5.1.7 permits, so the answer for a signature does not depend on what else
+ * was in its batch. EdDSAEngine checks [S]B = R + [k]A instead. The two only
+ * differ on signatures whose R or A has a small-order component, which no
+ * honest signer produces: such a signature may be accepted here and rejected
+ * by the engine. Signatures that {@link VerifyPrefilter} rejects, including a
+ * small-order R or A, are rejected here too.
+ *</p><p>
+ * Callers never block inside this class and hold no locks, so it can be
+ * used from virtual threads.
+ *</p>
+ *
+ * @see Ed25519Verifier
+ */
+public final class Ed25519BatchVerifier implements AutoCloseable {
+    private static final Request SHUTDOWN = new Request(null, null, 0, 0, null);
+
+    private final int maxBatch;
+    private final long windowNanos;
+    private final BlockingQueue<Request> pending = new LinkedBlockingQueue<Request>();
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private final ThreadLocal<EdDSAEngine> engines = new ThreadLocal<EdDSAEngine>() {
+        @Override
+        protected EdDSAEngine initialValue() {
+            return new EdDSAEngine();
+        }
+    };
+    private final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return Digests.newDigest("SHA-512");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+    private static final ThreadLocal<SecureRandom> drbgs = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    };
+    private volatile boolean closed;
+
+    /**
+     * L - 1, little-endian; multiplying by it negates a scalar mod L.
+     */
+    private static final byte[] L_MINUS_ONE =
+            Utils.hexToBytes("ecd3f55c1a631258d69cf7a2def9de1400000000000000000000000000000010");
+
+    private static final byte[] ZERO = new byte[32];
+
+    private static final class Request {
+        final EdDSAPublicKey key;
+        final byte[] data;
+        final int off;
+        final int len;
+        final byte[] signature;
+        final CompletableFuture<Boolean> result = new CompletableFuture<Boolean>();
+        // The decoded R of an Ed25519 signature, once a worker has it
+        GroupElement R;
+
+        Request(EdDSAPublicKey key, byte[] data, int off, int len, byte[] signature) {
+            this.key = key;
+            this.data = data;
+            this.off = off;
+            this.len = len;
+            this.signature = signature;
+        }
+    }
+
+    /**
+     * Uses one worker per available processor, batches of up to 64 and a
+     * latency window of 100 microseconds.
+     */
+    public Ed25519BatchVerifier() {
+        this(Runtime.getRuntime().availableProcessors(), 64, 100, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * @param threads the number of worker threads
+     * @param maxBatch the largest number of requests handed to a worker at once
+     * @param window how long to wait for a batch to fill
+     * @param unit the unit of window
+     * @throws IllegalArgumentException if threads or maxBatch is less than 1, or window is negative
+     */
+    public Ed25519BatchVerifier(int threads, int maxBatch, long window, TimeUnit unit) {
+        if (threads < 1 || maxBatch < 1 || window < 0) throw new IllegalArgumentException("invalid batch parameters");
+        this.maxBatch = maxBatch;
+        this.windowNanos = unit.toNanos(window);
+        ThreadFactory factory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Ed25519 verifier " + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        };
+        // At most two batches wait per worker; beyond that the dispatcher
+        // verifies a batch itself, which slows down how fast it collects more.
+        this.workers = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(2 * threads),
+                factory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.dispatcher = factory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                dispatch();
+            }
+        });
+        dispatcher.setName("Ed25519 verifier dispatcher");
+        dispatcher.start();
+    }
+
+    /**
+     * @param key the public key to verify with
+     * @param data the message that was signed
+     * @param signature of the message
+     * @return a future completed with true if the signature is valid, false
+     *         otherwise, or exceptionally if it cannot be checked at all
+     * @throws RejectedExecutionException if this verifier has been closed
+     */
+    public CompletableFuture<Boolean> verify(EdDSAPublicKey key, byte[] data, byte[] signature) {
+        return verify(key, data, 0, data.length, signature);
+    }
+
+    /**
+     * The arrays must not be modified until the future has completed.
+     *
+     * @param key the public key to verify with
+     * @param data byte array containing the message that was signed
+     * @param off the start of the message inside data
+     * @param len the length of the message
+     * @param signature of the message
+     * @return a future completed with true if the signature is valid, false
+     *         otherwise, or exceptionally if it cannot be checked at all
+     * @throws RejectedExecutionException if this verifier has been closed
+     */
+    public CompletableFuture<Boolean> verify(EdDSAPublicKey key, byte[] data, int off, int len, byte[] signature) {
+        if (closed) throw new RejectedExecutionException("verifier is closed");
+        if (key == null || signature == null) throw new NullPointerException();
+        if (off < 0 || len < 0 || off + len > data.length) throw new IndexOutOfBoundsException();
+        Request request = new Request(key, data, off, len, signature);
+        pending.add(request);
+        // close() may have raced with us; if nobody will take the request, withdraw it
+        if (closed && pending.remove(request)) throw new RejectedExecutionException("verifier is closed");
+        return request.result;
+    }
+
+    /**
+     * Stops accepting requests. Requests already accepted are still verified.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        pending.add(SHUTDOWN);
+    }
+
+    private void dispatch() {
+        try {
+            while (true) {
+                Request first = pending.take();
+                if (first == SHUTDOWN) break;
+                final List<Request> batch = new ArrayList<Request>(maxBatch);
+                batch.add(first);
+                boolean last = collect(batch);
+                workers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        verifyBatch(batch);
+                    }
+                });
+                if (last) break;
+            }
+        } catch (InterruptedException e) {
+            // fall through to shutdown
+        } finally {
+            closed = true;
+            workers.shutdown();
+            // Anything still queued arrived too late to be dispatched
+            for (Request r = pending.poll(); r != null; r = pending.poll()) {
+                if (r != SHUTDOWN) r.result.completeExceptionally(new RejectedExecutionException("verifier is closed"));
+            }
+        }
+    }
+
+    /**
+     * Fills the batch until it is full or the window has passed.
+     * @return true if the verifier was closed while collecting
+     */
+    private boolean collect(List<Request> batch) throws InterruptedException {
+        // Take whatever is already waiting without checking the clock
+        Request r;
+        while (batch.size() < maxBatch && (r = pending.poll()) != null) {
+            if (r == SHUTDOWN) return true;
+            batch.add(r);
+        }
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatch) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) break;
+            r = pending.poll(remaining, TimeUnit.NANOSECONDS);
+            if (r == null) break;
+            if (r == SHUTDOWN) return true;
+            batch.add(r);
+        }
+        return false;
+    }
+
+    private void verifyBatch(List<Request> batch) {
+        long start = System.nanoTime();
+        List<Request> combined = new ArrayList<Request>(batch.size());
+        List<Request> single = new ArrayList<Request>();
+        for (Request r : batch) {
+            if (!EdDSANamedCurveTable.ED_25519_CURVE_SPEC.equals(r.key.getParams()) || r.signature.length != 64) {
+                // Let the engine deal with it, and throw where it would
+                single.add(r);
+                continue;
+            }
+            Rejection rejection = VerifyPrefilter.check(r.signature, 0, r.key.getAbyte());
+            if (rejection != null) {
+                EdDSAMetrics.rejected(rejection);
+                EdDSAMetrics.verifyFailed();
+                r.result.complete(false);
+                continue;
+            }
+            try {
+                r.R = new GroupElement(r.key.getParams().getCurve(), Arrays.copyOf(r.signature, 32));
+            } catch (IllegalArgumentException e) {
+                // R is not on the curve, so it cannot equal the encoding of SB - kA
+                EdDSAMetrics.verifyFailed();
+                r.result.complete(false);
+                continue;
+            }
+            combined.add(r);
+        }
+
+        if (!combined.isEmpty()) {
+            boolean[] valid = new boolean[combined.size()];
+            if (verifyCombined(combined)) {
+                Arrays.fill(valid, true);
+            } else if (combined.size() > 1) {
+                // Find the bad ones with the same equation, one signature at a time
+                for (int i = 0; i < valid.length; i++) {
+                    valid[i] = verifyCombined(Collections.singletonList(combined.get(i)));
+                }
+            }
+            // Includes a failed combined attempt
+            EdDSAMetrics.verify().record(combined.size(), System.nanoTime() - start);
+            for (int i = 0; i < valid.length; i++) {
+                if (!valid[i]) EdDSAMetrics.verifyFailed();
+                combined.get(i).result.complete(valid[i]);
+            }
+        }
+        verifyEach(single);
+    }
+
+    /**
+     * Checks that [8](sum z_i R_i + sum c_j A_j - s B) = 0, where the z_i are
+     * random 128-bit scalars, c_j = sum z_i k_i over the signatures by key j,
+     * k_i = H(R_i, A_i, M_i) and s = sum z_i S_i. A single signature is
+     * checked with z = 1, which is exactly its own cofactored equation.
+     *
+     * @param batch Ed25519 requests with R decoded, that passed the pre-filter
+     * @return true if all the signatures are valid, false if any may not be
+     */
+    private boolean verifyCombined(List<Request> batch) {
+        EdDSAParameterSpec params = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        ScalarOps sc = params.getScalarOps();
+        MessageDigest md = digests.get();
+        byte[] random = new byte[16 * batch.size()];
+        if (batch.size() == 1) random[0] = 1;
+        else drbgs.get().nextBytes(random);
+
+        // One point per R, then one per distinct key
+        List<GroupElement> points = new ArrayList<GroupElement>(2 * batch.size());
+        List<byte[]> scalars = new ArrayList<byte[]>(2 * batch.size());
+        Map<EdDSAPublicKey, Integer> keys = new HashMap<EdDSAPublicKey, Integer>();
+        List<EdDSAPublicKey> keyOrder = new ArrayList<EdDSAPublicKey>();
+        List<byte[]> keyScalars = new ArrayList<byte[]>();
+        byte[] s = ZERO;
+        for (int i = 0; i < batch.size(); i++) {
+            Request r = batch.get(i);
+            byte[] z = new byte[32];
+            System.arraycopy(random, 16 * i, z, 0, 16);
+
+            md.update(r.signature, 0, 32);
+            md.update(r.key.getAbyte());
+            md.update(r.data, r.off, r.len);
+            byte[] k = sc.reduce(md.digest());
+
+            s = sc.multiplyAndAdd(z, Arrays.copyOfRange(r.signature, 32, 64), s);
+            points.add(r.R);
+            scalars.add(z);
+
+            Integer j = keys.get(r.key);
+            if (j == null) {
+                j = keyOrder.size();
+                keys.put(r.key, j);
+                keyOrder.add(r.key);
+                keyScalars.add(ZERO);
+            }
+            keyScalars.set(j, sc.multiplyAndAdd(z, k, keyScalars.get(j)));
+        }
+        // The keys keep -A precomputed, so use c_j A_j = (-c_j)(-A_j)
+        for (int j = 0; j < keyOrder.size(); j++) {
+            points.add(keyOrder.get(j).getNegativeA());
+            scalars.add(sc.multiplyAndAdd(keyScalars.get(j), L_MINUS_ONE, ZERO));
+        }
+        byte[] minusS = sc.multiplyAndAdd(s, L_MINUS_ONE, ZERO);
+
+        GroupElement e = params.getB()
+                .multiScalarMultiplyVariableTime(
+                        points.toArray(new GroupElement[0]), scalars.toArray(new byte[0][]), minusS);
+        for (int i = 0; i < 3; i++) e = e.dbl().toP2();
+        // The neutral element is (0 : Z : Z)
+        return !e.getX().isNonZero() && !e.getY().subtract(e.getZ()).isNonZero();
+    }
+
+    private void verifyEach(List<Request> batch) {
+        EdDSAEngine engine = engines.get();
+        EdDSAPublicKey current = null;
+        for (Request r : batch) {
+            try {
+                if (r.key != current) {
+                    engine.initVerify(r.key);
+                    current = r.key;
+                }
+                r.result.complete(engine.verifyOneShot(r.data, r.off, r.len, r.signature));
+            } catch (InvalidKeyException e) {
+                current = null;
+                r.result.completeExceptionally(e);
+            } catch (Exception e) {
+                r.result.completeExceptionally(e);
+            }
+        }
+    }
+}
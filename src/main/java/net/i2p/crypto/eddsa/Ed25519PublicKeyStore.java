@@ -0,0 +1,285 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+/**
+ * A compact set of Ed25519 public keys, for holding tens of thousands of host
+ * keys or authorized keys.
+ * <p>
+ * An {@link EdDSAPublicKey} holds the decoded point and, once it has verified a
+ * signature, its negation as well, which adds up to hundreds of bytes. This store
+ * keeps only the 32-byte encoding of each key in one buffer, which may be
+ * off-heap, and an index from the OpenSSH SHA-256 fingerprint to the key, so
+ * that it needs 56 to 128 bytes per key depending on how full it is. Full keys
+ * are built when they are asked for and are not cached.
+ * <p>
+ * Keys are identified by their position, in the order they were first added.
+ * Adding a key that is already present returns its existing position. Keys
+ * cannot be removed.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class Ed25519PublicKeyStore {
+    static final int KEY_LENGTH = 32;
+
+    private final boolean offHeap;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer keys;
+    private int size;
+    // Open addressing: the first 8 bytes of each fingerprint, and the position + 1 of its key (0 = empty).
+    private long[] hashes;
+    private int[] slots;
+
+    /**
+     * Creates an empty store on the heap.
+     */
+    public Ed25519PublicKeyStore() {
+        this(16, false);
+    }
+
+    /**
+     * @param expectedSize the number of keys to make room for
+     * @param offHeap true to keep the key encodings in a direct buffer
+     */
+    public Ed25519PublicKeyStore(int expectedSize, boolean offHeap) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize must not be negative");
+        this.offHeap = offHeap;
+        int capacity = Math.max(expectedSize, 16);
+        this.keys = allocate(capacity);
+        this.hashes = new long[tableSize(capacity)];
+        this.slots = new int[hashes.length];
+    }
+
+    /**
+     * Computes the fingerprint that OpenSSH shows for a key: the SHA-256 of the
+     * key in SSH wire format.
+     *
+     * @param encoded the 32-byte public key
+     * @return the 32-byte fingerprint
+     */
+    public static byte[] fingerprint(byte[] encoded) {
+        checkLength(encoded);
+        try {
+            MessageDigest sha256 = Digests.newDigest("SHA-256");
+            return sha256.digest(OpenSSHKeys.toBlob(encoded));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @param fingerprint a fingerprint as returned by {@link #fingerprint(byte[])}
+     * @return the fingerprint as shown by {@code ssh-keygen -l}, e.g. "SHA256:l/ydyg..."
+     */
+    public static String toString(byte[] fingerprint) {
+        return "SHA256:" + Base64.getEncoder().withoutPadding().encodeToString(fingerprint);
+    }
+
+    /**
+     * Adds a key, unless it is already present.
+     *
+     * @param key the key, which must be on the Ed25519 curve
+     * @return the position of the key
+     */
+    public int add(EdDSAPublicKey key) {
+        if (!EdDSANamedCurveTable.ED_25519_CURVE_SPEC.equals(key.getParams())) {
+            throw new IllegalArgumentException("not an Ed25519 key");
+        }
+        return add(key.getAbyte());
+    }
+
+    /**
+     * Adds a key, unless it is already present. The encoding is not decoded,
+     * so an invalid point is only detected by {@link #get(int)}.
+     *
+     * @param encoded the 32-byte public key
+     * @return the position of the key
+     */
+    public int add(byte[] encoded) {
+        byte[] fp = fingerprint(encoded);
+        long hash = hash(fp);
+        lock.writeLock().lock();
+        try {
+            int existing = find(hash, fp);
+            if (existing >= 0) {
+                return existing;
+            }
+            if (size == keys.capacity() / KEY_LENGTH) {
+                grow();
+            }
+            int index = size++;
+            keys.put(index * KEY_LENGTH, encoded);
+            insert(hash, index);
+            return index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of keys
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return true if the keys are kept in a direct buffer
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @param index the position of a key
+     * @return a copy of its 32-byte encoding
+     * @throws IndexOutOfBoundsException if there is no such key
+     */
+    public byte[] getEncoded(int index) {
+        lock.readLock().lock();
+        try {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException(Integer.toString(index));
+            byte[] encoded = new byte[KEY_LENGTH];
+            keys.get(index * KEY_LENGTH, encoded);
+            return encoded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Builds the full key. Each call decodes the point again.
+     *
+     * @param index the position of a key
+     * @return the key
+     * @throws IndexOutOfBoundsException if there is no such key
+     * @throws IllegalArgumentException if the stored encoding is not a valid point
+     */
+    public EdDSAPublicKey get(int index) {
+        return new EdDSAPublicKey(new EdDSAPublicKeySpec(getEncoded(index), EdDSANamedCurveTable.ED_25519_CURVE_SPEC));
+    }
+
+    /**
+     * @param fingerprint a 32-byte fingerprint, see {@link #fingerprint(byte[])}
+     * @return the position of the key with that fingerprint, or -1
+     */
+    public int indexOf(byte[] fingerprint) {
+        if (fingerprint.length != 32) return -1;
+        long hash = hash(fingerprint);
+        lock.readLock().lock();
+        try {
+            return find(hash, fingerprint);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param fingerprint a fingerprint as shown by {@code ssh-keygen -l}
+     * @return the key with that fingerprint, or null
+     */
+    public EdDSAPublicKey getByFingerprint(String fingerprint) {
+        if (!fingerprint.startsWith("SHA256:")) return null;
+        byte[] fp;
+        try {
+            fp = Base64.getDecoder().decode(fingerprint.substring(7));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int index = indexOf(fp);
+        return index < 0 ? null : get(index);
+    }
+
+    /**
+     * @param key a key
+     * @return true if the store holds a key with the same encoding
+     */
+    public boolean contains(EdDSAPublicKey key) {
+        return indexOf(fingerprint(key.getAbyte())) >= 0;
+    }
+
+    private int find(long hash, byte[] fp) {
+        int mask = hashes.length - 1;
+        for (int i = (int) hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (hashes[i] == hash) {
+                int index = slots[i] - 1;
+                // 64 bits rarely collide, but the full fingerprint decides
+                byte[] encoded = new byte[KEY_LENGTH];
+                keys.get(index * KEY_LENGTH, encoded);
+                if (Arrays.equals(fingerprint(encoded), fp)) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long hash, int index) {
+        int mask = hashes.length - 1;
+        int i = (int) hash & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        slots[i] = index + 1;
+    }
+
+    private void grow() {
+        int capacity = keys.capacity() / KEY_LENGTH * 2;
+        ByteBuffer bigger = allocate(capacity);
+        bigger.put(0, keys, 0, size * KEY_LENGTH);
+        keys = bigger;
+        long[] oldHashes = hashes;
+        int[] oldSlots = slots;
+        hashes = new long[tableSize(capacity)];
+        slots = new int[hashes.length];
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                insert(oldHashes[i], oldSlots[i] - 1);
+            }
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return offHeap ? ByteBuffer.allocateDirect(capacity * KEY_LENGTH) : ByteBuffer.allocate(capacity * KEY_LENGTH);
+    }
+
+    /**
+     * @return a power of two at least twice the capacity, so the table is at most half full
+     */
+    private static int tableSize(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 8) * 4 - 1);
+    }
+
+    private static long hash(byte[] fp) {
+        return ByteBuffer.wrap(fp).getLong();
+    }
+
+    private static void checkLength(byte[] encoded) {
+        if (encoded.length != KEY_LENGTH) throw new IllegalArgumentException("public key must be 32 bytes");
+    }
+}
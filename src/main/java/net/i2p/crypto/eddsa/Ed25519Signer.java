@@ -0,0 +1,207 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An Ed25519 signer bound to a single private key.
+ *<p>
+ * Unlike {@link EdDSAEngine}, instances are immutable and can be shared
+ * between threads. Each thread that signs gets its own engine, initialized
+ * once with the key from a cloned digest, so repeated signing involves no
+ * JCA lookups or re-initialization.
+ *</p>
+ *
+ * @see Ed25519Verifier
+ */
+public final class Ed25519Signer {
+    private final EdDSAPrivateKey key;
+    private final ThreadLocal<EdDSAEngine> engines;
+
+    /**
+     * @param key the private key to sign with
+     * @throws InvalidKeyException if the key is not an Ed25519 key, or if its
+     *         public key does not belong to it
+     */
+    public Ed25519Signer(EdDSAPrivateKey key) throws InvalidKeyException {
+        this.key = key;
+        final MessageDigest prototype = digestFor(key);
+        // Fail here rather than on first use in some other thread
+        newEngine(key, prototype);
+        this.engines = new ThreadLocal<EdDSAEngine>() {
+            @Override
+            protected EdDSAEngine initialValue() {
+                try {
+                    return newEngine(Ed25519Signer.this.key, prototype);
+                } catch (InvalidKeyException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static EdDSAEngine newEngine(EdDSAPrivateKey key, MessageDigest prototype) throws InvalidKeyException {
+        EdDSAEngine engine = new EdDSAEngine(cloneDigest(prototype));
+        engine.initSign(key);
+        return engine;
+    }
+
+    /**
+     * @return the key this signer was created with
+     */
+    public EdDSAPrivateKey getKey() {
+        return key;
+    }
+
+    /**
+     * @param data the message to be signed
+     * @return the signature
+     * @throws SignatureException if signing fails
+     */
+    public byte[] sign(byte[] data) throws SignatureException {
+        return sign(data, 0, data.length);
+    }
+
+    /**
+     * @param data byte array containing the message to be signed
+     * @param off the start of the message inside data
+     * @param len the length of the message
+     * @return the signature
+     * @throws SignatureException if signing fails
+     */
+    public byte[] sign(byte[] data, int off, int len) throws SignatureException {
+        return engines.get().signOneShot(data, off, len);
+    }
+
+    /**
+     * Signs many messages, on the common ForkJoinPool.
+     *
+     * @param messages the messages to be signed
+     * @return the signatures, in the same order as the messages
+     * @throws SignatureException if signing fails
+     * @see #sign(byte[][], ForkJoinPool)
+     */
+    public byte[][] sign(byte[][] messages) throws SignatureException {
+        return sign(messages, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Signs many messages, splitting them into chunks that are signed in
+     * parallel on the pool. Each worker uses its own engine, and the R points
+     * of a chunk are encoded with one shared field inversion instead of one
+     * each.
+     *
+     * @param messages the messages to be signed
+     * @param pool the pool to sign on
+     * @return the signatures, in the same order as the messages
+     * @throws SignatureException if signing fails
+     */
+    public byte[][] sign(byte[][] messages, ForkJoinPool pool) throws SignatureException {
+        byte[][] sigs = new byte[messages.length][];
+        if (messages.length <= BATCH_CHUNK_SIZE) {
+            // Not worth handing over to the pool
+            engines.get().signBatch(messages, 0, messages.length, sigs);
+            return sigs;
+        }
+        try {
+            pool.invoke(new BatchSign(messages, 0, messages.length, sigs));
+        } catch (SigningFailure e) {
+            throw e.getCause();
+        }
+        return sigs;
+    }
+
+    private static final int BATCH_CHUNK_SIZE = 32;
+
+    /**
+     * Carries a SignatureException out of a ForkJoinTask.
+     */
+    private static final class SigningFailure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SigningFailure(SignatureException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SignatureException getCause() {
+            return (SignatureException) super.getCause();
+        }
+    }
+
+    private final class BatchSign extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final byte[][] messages;
+        private final int from;
+        private final int to;
+        private final byte[][] sigs;
+
+        BatchSign(byte[][] messages, int from, int to, byte[][] sigs) {
+            this.messages = messages;
+            this.from = from;
+            this.to = to;
+            this.sigs = sigs;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_CHUNK_SIZE) {
+                try {
+                    engines.get().signBatch(messages, from, to, sigs);
+                } catch (SignatureException e) {
+                    throw new SigningFailure(e);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchSign(messages, from, mid, sigs), new BatchSign(messages, mid, to, sigs));
+        }
+    }
+
+    /**
+     * @throws InvalidKeyException if the key is not an Ed25519 key
+     */
+    static void checkEd25519(EdDSAKey key) throws InvalidKeyException {
+        if (key.getParams().getCurve().getField().getb() != 256
+                || !"SHA-512".equals(key.getParams().getHashAlgorithm()))
+            throw new InvalidKeyException("not an Ed25519 key");
+    }
+
+    /**
+     * @return a digest for the key, which must be an Ed25519 key
+     */
+    static MessageDigest digestFor(EdDSAKey key) throws InvalidKeyException {
+        checkEd25519(key);
+        try {
+            return Digests.newDigest(key.getParams().getHashAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new InvalidKeyException("cannot get required digest " + key.getParams().getHashAlgorithm());
+        }
+    }
+
+    /**
+     * @return a fresh copy of the digest
+     */
+    static MessageDigest cloneDigest(MessageDigest prototype) {
+        try {
+            return Digests.copy(prototype);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
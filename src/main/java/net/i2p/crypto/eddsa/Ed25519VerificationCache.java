@@ -0,0 +1,234 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.security.DigestException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import net.i2p.crypto.eddsa.jfr.VerificationCacheEvent;
+
+/**
+ * A cache of successful Ed25519 verifications.
+ *<p>
+ * Entries are keyed by the public key, the signature and the SHA-512 hash
+ * of the message, so verifying a signature that was already found valid
+ * costs one hash of the message instead of a double scalar multiplication.
+ * Failed verifications are never cached.
+ *</p><p>
+ * Entries expire after a fixed time, and once the cache is full the oldest
+ * entries are evicted first. Instances are thread-safe.
+ *</p>
+ *
+ * @see Ed25519Verifier
+ */
+public final class Ed25519VerificationCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    // Insertion order, for eviction; may still hold entries that have expired
+    private final ConcurrentLinkedQueue<Entry> order = new ConcurrentLinkedQueue<Entry>();
+    private final AtomicInteger orderSize = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final ThreadLocal<EdDSAEngine> engines = new ThreadLocal<EdDSAEngine>() {
+        @Override
+        protected EdDSAEngine initialValue() {
+            return new EdDSAEngine();
+        }
+    };
+    private final ThreadLocal<MessageDigest> digests = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return Digests.newDigest("SHA-512");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * (public key, signature, H(message)), compared by value.
+     */
+    private static final class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final long expires;
+
+        Entry(Key key, long expires) {
+            this.key = key;
+            this.expires = expires;
+        }
+    }
+
+    /**
+     * @param maxEntries the most verifications to remember
+     * @param ttl how long to remember a verification for
+     * @param unit the unit of ttl
+     * @throws IllegalArgumentException if maxEntries or ttl is not positive
+     */
+    public Ed25519VerificationCache(int maxEntries, long ttl, TimeUnit unit) {
+        if (maxEntries < 1 || ttl <= 0) throw new IllegalArgumentException("invalid cache limits");
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * @param key the public key to verify with, which must be an Ed25519 key
+     * @param data the message that was signed
+     * @param signature of the message
+     * @return true if the signature is valid, false otherwise
+     * @throws InvalidKeyException if the key is not an Ed25519 key
+     * @throws SignatureException if the signature has the wrong length
+     */
+    public boolean verify(EdDSAPublicKey key, byte[] data, byte[] signature)
+            throws InvalidKeyException, SignatureException {
+        return verify(key, data, 0, data.length, signature);
+    }
+
+    /**
+     * @param key the public key to verify with, which must be an Ed25519 key
+     * @param data byte array containing the message that was signed
+     * @param off the start of the message inside data
+     * @param len the length of the message
+     * @param signature of the message
+     * @return true if the signature is valid, false otherwise
+     * @throws InvalidKeyException if the key is not an Ed25519 key
+     * @throws SignatureException if the signature has the wrong length
+     */
+    public boolean verify(EdDSAPublicKey key, byte[] data, int off, int len, byte[] signature)
+            throws InvalidKeyException, SignatureException {
+        Ed25519Signer.checkEd25519(key);
+        if (signature.length != 64) throw new SignatureException("signature length is wrong");
+
+        VerificationCacheEvent event = new VerificationCacheEvent();
+        event.begin();
+        Key k = key(key, data, off, len, signature);
+        long now = System.nanoTime();
+        Entry e = entries.get(k);
+        if (e != null) {
+            if (now - e.expires < 0) {
+                hits.increment();
+                EdDSAMetrics.cacheHit();
+                event.hit = true;
+                event.commit();
+                return true;
+            }
+            entries.remove(k, e);
+        }
+        misses.increment();
+        EdDSAMetrics.cacheMiss();
+        event.commit();
+
+        EdDSAEngine engine = engines.get();
+        engine.initVerify(key);
+        if (!engine.verifyOneShot(data, off, len, signature)) return false;
+
+        e = new Entry(k, now + ttlNanos);
+        entries.put(k, e);
+        order.add(e);
+        orderSize.incrementAndGet();
+        evict();
+        return true;
+    }
+
+    private Key key(EdDSAPublicKey key, byte[] data, int off, int len, byte[] signature) {
+        MessageDigest md = digests.get();
+        byte[] abyte = key.getAbyte();
+        byte[] k = new byte[abyte.length + signature.length + md.getDigestLength()];
+        System.arraycopy(abyte, 0, k, 0, abyte.length);
+        System.arraycopy(signature, 0, k, abyte.length, signature.length);
+        md.update(data, off, len);
+        try {
+            md.digest(k, abyte.length + signature.length, md.getDigestLength());
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return new Key(k);
+    }
+
+    private void evict() {
+        // Also stop expired entries that were already replaced from piling up
+        while (entries.size() > maxEntries || orderSize.get() > 2 * maxEntries) {
+            Entry oldest = order.poll();
+            if (oldest == null) return;
+            orderSize.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) evictions.increment();
+        }
+    }
+
+    /**
+     * Forgets all verifications. The statistics are kept.
+     */
+    public void clear() {
+        entries.clear();
+        order.clear();
+        orderSize.set(0);
+    }
+
+    /**
+     * @return the number of verifications currently remembered, including
+     *         any that have expired but not yet been removed
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return how often a valid signature was found in the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return how often a signature had to be verified
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return how many verifications were forgotten to stay within the size limit
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.SignatureException;
+
+/**
+ * An Ed25519 verifier bound to a single public key.
+ *<p>
+ * Unlike {@link EdDSAEngine}, instances are immutable and can be shared
+ * between threads. Each thread that verifies gets its own engine, initialized
+ * once with the key from a cloned digest, so repeated verification involves
+ * no JCA lookups or re-initialization.
+ *</p>
+ *
+ * @see Ed25519Signer
+ */
+public final class Ed25519Verifier {
+    private final EdDSAPublicKey key;
+    private final ThreadLocal<EdDSAEngine> engines;
+
+    /**
+     * @param key the public key to verify with
+     * @throws InvalidKeyException if the key is not an Ed25519 key
+     */
+    public Ed25519Verifier(EdDSAPublicKey key) throws InvalidKeyException {
+        this.key = key;
+        final MessageDigest prototype = Ed25519Signer.digestFor(key);
+        // Fail here rather than on first use in some other thread
+        newEngine(key, prototype);
+        this.engines = new ThreadLocal<EdDSAEngine>() {
+            @Override
+            protected EdDSAEngine initialValue() {
+                try {
+                    return newEngine(Ed25519Verifier.this.key, prototype);
+                } catch (InvalidKeyException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private static EdDSAEngine newEngine(EdDSAPublicKey key, MessageDigest prototype) throws InvalidKeyException {
+        EdDSAEngine engine = new EdDSAEngine(Ed25519Signer.cloneDigest(prototype));
+        engine.initVerify(key);
+        return engine;
+    }
+
+    /**
+     * @return the key this verifier was created with
+     */
+    public EdDSAPublicKey getKey() {
+        return key;
+    }
+
+    /**
+     * @param data the message that was signed
+     * @param signature of the message
+     * @return true if the signature is valid, false otherwise
+     * @throws SignatureException if the signature has the wrong length
+     */
+    public boolean verify(byte[] data, byte[] signature) throws SignatureException {
+        return verify(data, 0, data.length, signature);
+    }
+
+    /**
+     * @param data byte array containing the message that was signed
+     * @param off the start of the message inside data
+     * @param len the length of the message
+     * @param signature of the message
+     * @return true if the signature is valid, false otherwise
+     * @throws SignatureException if the signature has the wrong length
+     */
+    public boolean verify(byte[] data, int off, int len, byte[] signature) throws SignatureException {
+        return engines.get().verifyOneShot(data, off, len, signature);
+    }
+}
@@ -11,25 +11,32 @@
  */
 package net.i2p.crypto.eddsa;
 
-import java.io.ByteArrayOutputStream;
-import java.math.BigInteger;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
+import java.security.ProviderException;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.AlgorithmParameterSpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
-import java.util.Arrays;
+import net.i2p.crypto.eddsa.jfr.SignEvent;
+import net.i2p.crypto.eddsa.jfr.VerifyEvent;
 import net.i2p.crypto.eddsa.math.Curve;
 import net.i2p.crypto.eddsa.math.GroupElement;
 import net.i2p.crypto.eddsa.math.ScalarOps;
-import net.i2p.crypto.eddsa.math.bigint.BigIntegerLittleEndianEncoding;
+import net.i2p.crypto.eddsa.spec.EdDSAContextSpec;
 
 /**
  * Signing and verification for EdDSA.
@@ -63,11 +70,29 @@ import net.i2p.crypto.eddsa.math.bigint.BigIntegerLittleEndianEncoding;
  *         just call signOneShot() or verifyOneShot() again.
  *</li></ol>
  *
+ *<p>
+ * Both options also accept {@link ByteBuffer}s, including direct buffers and
+ * scattered messages split over several buffers, which are read in place.
+ * sign(byte[], int, int) writes the signature straight into the caller's array.
+ * Files can be signed and verified through memory-mapping, see signOneShot(Path)
+ * and verifyOneShot(Path, byte[]).
+ *</p>
+ *
+ *<p>
+ * Engines for the RFC 8032 variants Ed25519ph and Ed25519ctx are made by
+ * {@link #ed25519ph()} and {@link #ed25519ctx()}. Ed25519ph hashes data as it
+ * is passed to update(), so arbitrarily large messages can be signed and verified
+ * in constant memory. A context for either variant is set with an
+ * {@link EdDSAContextSpec} via setParameter(), before the first update().
+ *</p>
+ *
  * @author str4d
  *
  */
-public final class EdDSAEngine extends Signature {
+public final class EdDSAEngine extends Signature implements Cloneable {
     public static final String SIGNATURE_ALGORITHM = "NONEwithEdDSA";
+    public static final String ED25519PH_ALGORITHM = "Ed25519ph";
+    public static final String ED25519CTX_ALGORITHM = "Ed25519ctx";
     private static final Class<?> x509Key;
 
     static {
@@ -79,12 +104,35 @@ public final class EdDSAEngine extends Signature {
     }
 
     private MessageDigest digest;
-    private ByteArrayOutputStream baos;
+    // The digest after absorbing dom2(F,C) and the key prefix, cloned for each signature
+    private MessageDigest signPrototype;
+    private SegmentedMessageBuffer baos;
+    // see EdDSASecurityProvider.SPILL_THRESHOLD_PROPERTY
+    long spillThreshold = SegmentedMessageBuffer.DEFAULT_SPILL_THRESHOLD;
+    // Largest region of a file mapped at once, smaller in tests
+    int mapChunkSize = MAP_CHUNK_SIZE;
     private EdDSAKey key;
     private boolean oneShotMode;
     private byte[] oneShotBytes;
     private int oneShotOffset;
     private int oneShotLength;
+    private ByteBuffer[] oneShotBuffers;
+    // Scratch space for verification, sized for the key on initVerify()
+    private byte[] hBuf;
+    private byte[] sBuf;
+    // Why the last verify() turned the signature away, for VerifyEvent
+    private EdDSAMetrics.Rejection rejection;
+    // Ed25519ph and Ed25519ctx only
+    private final boolean prehashMode;
+    private final boolean contextRequired;
+    private byte[] context;
+    private byte[] dom;
+    private MessageDigest prehash;
+    private boolean prehashUpdated;
+    private byte[] phBuf;
+    // Delegation to the JDK's Ed25519, see NATIVE_MODE
+    boolean nativeMode = NativeEd25519.DEFAULT;
+    private Signature nativeSignature;
 
     /**
      *  To efficiently sign or verify data in one shot, pass this to setParameters()
@@ -97,11 +145,54 @@ public final class EdDSAEngine extends Signature {
 
     private static class OneShotSpec implements AlgorithmParameterSpec {}
 
+    /**
+     *  Pass this to setParameter() to let this engine hand Ed25519 and
+     *  Ed25519ctx operations to the JDK's own implementation, where it is
+     *  present and was found to be faster on this machine by
+     *  {@link EdDSASecurityProvider#selectNativeOperations()}. Signatures and
+     *  verification results are the same either way. The mode lasts until
+     *  the engine is discarded. Engines start in this mode if the system
+     *  property {@link EdDSASecurityProvider#NATIVE_PROPERTY} is true.
+     */
+    public static final AlgorithmParameterSpec NATIVE_MODE = new NativeSpec();
+
+    private static class NativeSpec implements AlgorithmParameterSpec {}
+
+    /**
+     * RFC 8032 dom2 prefix, without the flag and context.
+     */
+    private static final byte[] DOM2_PREFIX = "SigEd25519 no Ed25519 collisions".getBytes(StandardCharsets.US_ASCII);
+
     /**
      * No specific EdDSA-internal hash requested, allows any EdDSA key.
      */
     public EdDSAEngine() {
-        super(SIGNATURE_ALGORITHM);
+        this(SIGNATURE_ALGORITHM, false, false);
+    }
+
+    private EdDSAEngine(String algorithm, boolean prehashMode, boolean contextRequired) {
+        super(algorithm);
+        this.prehashMode = prehashMode;
+        this.contextRequired = contextRequired;
+        if (prehashMode) context = new byte[0];
+    }
+
+    /**
+     * Ed25519ph from RFC 8032. Data passed to update() is hashed with SHA-512
+     * immediately and never buffered; the context defaults to empty.
+     * @return a new engine for {@link #ED25519PH_ALGORITHM}
+     */
+    public static EdDSAEngine ed25519ph() {
+        return new EdDSAEngine(ED25519PH_ALGORITHM, true, false);
+    }
+
+    /**
+     * Ed25519ctx from RFC 8032. A non-empty context must be set with an
+     * {@link EdDSAContextSpec} before signing or verifying.
+     * @return a new engine for {@link #ED25519CTX_ALGORITHM}
+     */
+    public static EdDSAEngine ed25519ctx() {
+        return new EdDSAEngine(ED25519CTX_ALGORITHM, false, true);
     }
 
     /**
@@ -116,8 +207,47 @@ public final class EdDSAEngine extends Signature {
     private void reset() {
         if (digest != null) digest.reset();
         if (baos != null) baos.reset();
+        if (prehash != null) prehash.reset();
+        prehashUpdated = false;
         oneShotMode = false;
         oneShotBytes = null;
+        oneShotBuffers = null;
+    }
+
+    /**
+     * Checks that the key can be used with Ed25519ph or Ed25519ctx,
+     * and creates the pre-hash digest for the former.
+     */
+    private void initVariant() throws InvalidKeyException {
+        if (!prehashMode && !contextRequired) return;
+        if (key.getParams().getCurve().getField().getb() != 256
+                || !"SHA-512".equals(key.getParams().getHashAlgorithm()))
+            throw new InvalidKeyException(getAlgorithm() + " requires an Ed25519 key");
+        if (prehashMode && prehash == null) {
+            try {
+                prehash = Digests.newDigest("SHA-512");
+                phBuf = new byte[prehash.getDigestLength()];
+            } catch (NoSuchAlgorithmException e) {
+                throw new InvalidKeyException("cannot get required digest SHA-512 for " + getAlgorithm());
+            }
+        }
+    }
+
+    /**
+     * Feeds dom2(F, C) into the digest for Ed25519ph and Ed25519ctx, see RFC 8032 section 5.1.
+     */
+    private void digestDom() throws SignatureException {
+        if (!prehashMode && !contextRequired) return;
+        if (contextRequired && (context == null || context.length == 0))
+            throw new SignatureException(getAlgorithm() + " requires a non-empty context");
+        if (dom == null) {
+            dom = new byte[DOM2_PREFIX.length + 2 + context.length];
+            System.arraycopy(DOM2_PREFIX, 0, dom, 0, DOM2_PREFIX.length);
+            dom[DOM2_PREFIX.length] = (byte) (prehashMode ? 1 : 0);
+            dom[DOM2_PREFIX.length + 1] = (byte) context.length;
+            System.arraycopy(context, 0, dom, DOM2_PREFIX.length + 2, context.length);
+        }
+        digest.update(dom);
     }
 
     @Override
@@ -125,28 +255,106 @@ public final class EdDSAEngine extends Signature {
         reset();
         if (privateKey instanceof EdDSAPrivateKey) {
             EdDSAPrivateKey privKey = (EdDSAPrivateKey) privateKey;
+            privKey.checkPublicKey();
             key = privKey;
 
             if (digest == null) {
                 // Instantiate the digest from the key parameters
                 try {
-                    digest = MessageDigest.getInstance(key.getParams().getHashAlgorithm());
+                    digest = Digests.newDigest(key.getParams().getHashAlgorithm());
                 } catch (NoSuchAlgorithmException e) {
                     throw new InvalidKeyException(
                             "cannot get required digest " + key.getParams().getHashAlgorithm() + " for private key.");
                 }
             } else if (!key.getParams().getHashAlgorithm().equals(digest.getAlgorithm()))
                 throw new InvalidKeyException("Key hash algorithm does not match chosen digest");
-            digestInitSign(privKey);
+            signPrototype = null;
+            initVariant();
         } else {
             throw new InvalidKeyException("cannot identify EdDSA private key: " + privateKey.getClass());
         }
     }
 
-    private void digestInitSign(EdDSAPrivateKey privKey) {
+    private void digestInitSign(EdDSAPrivateKey privKey) throws SignatureException {
         // Preparing for hash
-        // r = H(h_b,...,h_2b-1,M)
+        // r = H(dom2(F,C),h_b,...,h_2b-1,M)
+        // Rather than hashing the prefix again for every signature, start
+        // from a copy of a digest that has already absorbed it.
+        if (signPrototype == null) {
+            try {
+                digest.reset();
+                digestPrefix(privKey);
+                signPrototype = Digests.copy(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new SignatureException(e);
+            }
+        }
+        try {
+            digest = (MessageDigest) signPrototype.clone();
+        } catch (CloneNotSupportedException e) {
+            digest.reset();
+            digestPrefix(privKey);
+        }
+    }
+
+    /**
+     * Signs messages[from] to messages[to - 1] into sigs, computing all the
+     * R points first so that they can be encoded with one shared inversion.
+     * The engine must have been initialized for signing and not be in
+     * prehash mode, since PH(M) would have to be kept for every message.
+     */
+    void signBatch(byte[][] messages, int from, int to, byte[][] sigs) throws SignatureException {
+        if (!(key instanceof EdDSAPrivateKey)) throw new SignatureException("not initialized for signing");
+        if (prehashMode) throw new SignatureException("batch signing not supported by " + getAlgorithm());
+        EdDSAPrivateKey privKey = (EdDSAPrivateKey) key;
+        ScalarOps sc = key.getParams().getScalarOps();
+        GroupElement B = key.getParams().getB();
+        int n = to - from;
+        SignEvent event = new SignEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        // r = H(dom2(F,C),h_b,...,h_2b-1,M) and R = rB for every message
+        byte[][] r = new byte[n][];
+        GroupElement[] R = new GroupElement[n];
+        for (int i = 0; i < n; i++) {
+            digestInitSign(privKey);
+            digest.update(messages[from + i]);
+            r[i] = sc.reduce(digest.digest());
+            R[i] = B.scalarMultiply(r[i]);
+        }
+        byte[][] Rbytes = GroupElement.toByteArrays(R);
+
+        // S = (r + H(dom2(F,C),Rbar,Abar,M)*a) mod l
+        int b = key.getParams().getCurve().getField().getb();
+        for (int i = 0; i < n; i++) {
+            digest.reset();
+            digestDom();
+            digest.update(Rbytes[i]);
+            digest.update(privKey.getAbyte());
+            digest.update(messages[from + i]);
+            byte[] h = sc.reduce(digest.digest());
+            byte[] S = sc.multiplyAndAdd(h, privKey.geta(), r[i]);
+            byte[] sig = new byte[b / 4];
+            System.arraycopy(Rbytes[i], 0, sig, 0, b / 8);
+            System.arraycopy(S, 0, sig, b / 8, b / 8);
+            sigs[from + i] = sig;
+        }
+        EdDSAMetrics.sign().record(n, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            long length = 0;
+            for (int i = from; i < to; i++) length += messages[i].length;
+            event.algorithm = getAlgorithm();
+            event.messageLength = length;
+            event.signatures = n;
+            event.commit();
+        }
+    }
+
+    private void digestPrefix(EdDSAPrivateKey privKey) throws SignatureException {
         int b = privKey.getParams().getCurve().getField().getb();
+        digestDom();
         digest.update(privKey.getH(), b / 8, b / 4 - b / 8);
     }
 
@@ -159,13 +367,21 @@ public final class EdDSAEngine extends Signature {
             if (digest == null) {
                 // Instantiate the digest from the key parameters
                 try {
-                    digest = MessageDigest.getInstance(key.getParams().getHashAlgorithm());
+                    digest = Digests.newDigest(key.getParams().getHashAlgorithm());
                 } catch (NoSuchAlgorithmException e) {
                     throw new InvalidKeyException(
                             "cannot get required digest " + key.getParams().getHashAlgorithm() + " for private key.");
                 }
             } else if (!key.getParams().getHashAlgorithm().equals(digest.getAlgorithm()))
                 throw new InvalidKeyException("Key hash algorithm does not match chosen digest");
+
+            initVariant();
+
+            int b = key.getParams().getCurve().getField().getb();
+            if (hBuf == null || hBuf.length != b / 4) {
+                hBuf = new byte[b / 4];
+                sBuf = new byte[b / 8];
+            }
         } else if (x509Key.isInstance(publicKey)) {
             // X509Certificate will sometimes contain an X509Key rather than the EdDSAPublicKey itself; the contained
             // key is valid but needs to be instanced as an EdDSAPublicKey before it can be used.
@@ -187,8 +403,16 @@ public final class EdDSAEngine extends Signature {
     @Override
     protected void engineUpdate(byte b) throws SignatureException {
         if (oneShotMode) throw new SignatureException("unsupported in one-shot mode");
-        if (baos == null) baos = new ByteArrayOutputStream(256);
-        baos.write(b);
+        if (prehashMode) {
+            prehash.update(b);
+            prehashUpdated = true;
+            return;
+        }
+        try {
+            buffer().write(b);
+        } catch (IOException e) {
+            throw new SignatureException("cannot buffer message", e);
+        }
     }
 
     /**
@@ -196,50 +420,147 @@ public final class EdDSAEngine extends Signature {
      */
     @Override
     protected void engineUpdate(byte[] b, int off, int len) throws SignatureException {
+        if (prehashMode) {
+            if (oneShotMode && prehashUpdated) throw new SignatureException("update() already called");
+            prehash.update(b, off, len);
+            prehashUpdated = true;
+            return;
+        }
         if (oneShotMode) {
-            if (oneShotBytes != null) throw new SignatureException("update() already called");
+            if (updateCalled()) throw new SignatureException("update() already called");
             oneShotBytes = b;
             oneShotOffset = off;
             oneShotLength = len;
         } else {
-            if (baos == null) baos = new ByteArrayOutputStream(256);
-            baos.write(b, off, len);
+            try {
+                buffer().write(b, off, len);
+            } catch (IOException e) {
+                throw new SignatureException("cannot buffer message", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer in place where possible.
+     * In one-shot mode only a reference is kept, and the buffer must not
+     * be modified until sign() or verify() returns.
+     * @throws ProviderException wrapping a SignatureException if one-shot rules are violated
+     */
+    @Override
+    protected void engineUpdate(ByteBuffer input) {
+        try {
+            if (prehashMode) {
+                if (oneShotMode && prehashUpdated) throw new SignatureException("update() already called");
+                prehash.update(input);
+                prehashUpdated = true;
+            } else if (oneShotMode) {
+                if (updateCalled()) throw new SignatureException("update() already called");
+                oneShotBuffers = new ByteBuffer[] {input.slice()};
+                input.position(input.limit());
+            } else {
+                buffer().write(input);
+            }
+        } catch (IOException e) {
+            throw new ProviderException(new SignatureException("cannot buffer message", e));
+        } catch (SignatureException e) {
+            // Signature.update(ByteBuffer) declares SignatureException, but
+            // engineUpdate(ByteBuffer) cannot
+            throw new ProviderException(e);
+        }
+    }
+
+    /**
+     * Sets the message for one-shot mode to the remaining bytes of all of
+     * the buffers, advancing each to its limit.
+     */
+    private void updateOneShot(ByteBuffer[] data) throws SignatureException {
+        oneShotMode = true;
+        if (prehashMode) {
+            if (prehashUpdated) throw new SignatureException("update() already called");
+            for (ByteBuffer bb : data) prehash.update(bb);
+            prehashUpdated = true;
+        } else {
+            if (updateCalled()) throw new SignatureException("update() already called");
+            ByteBuffer[] slices = new ByteBuffer[data.length];
+            for (int i = 0; i < data.length; i++) {
+                slices[i] = data[i].slice();
+                data[i].position(data[i].limit());
+            }
+            oneShotBuffers = slices;
         }
     }
 
+    private SegmentedMessageBuffer buffer() {
+        if (baos == null) baos = new SegmentedMessageBuffer(spillThreshold);
+        return baos;
+    }
+
+    private boolean updateCalled() {
+        return oneShotBytes != null || oneShotBuffers != null || prehashUpdated || (baos != null && baos.size() > 0);
+    }
+
     @Override
     protected byte[] engineSign() throws SignatureException {
         try {
-            return x_engineSign();
+            byte[] sig = new byte[key.getParams().getCurve().getField().getb() / 4];
+            x_engineSign(sig, 0);
+            return sig;
         } finally {
             reset();
-            // must leave the object ready to sign again with
-            // the same key, as required by the API
-            EdDSAPrivateKey privKey = (EdDSAPrivateKey) key;
-            digestInitSign(privKey);
         }
     }
 
-    private byte[] x_engineSign() throws SignatureException {
+    /**
+     * Writes the signature into outbuf without allocating a result array.
+     * @throws SignatureException if len is less than the signature length
+     */
+    @Override
+    protected int engineSign(byte[] outbuf, int offset, int len) throws SignatureException {
+        try {
+            int sigLen = key.getParams().getCurve().getField().getb() / 4;
+            if (len < sigLen) throw new SignatureException("partial signatures not returned");
+            x_engineSign(outbuf, offset);
+            return sigLen;
+        } finally {
+            reset();
+        }
+    }
+
+    private void x_engineSign(byte[] out, int off) throws SignatureException {
+        SignEvent event = new SignEvent();
+        // engineSign() resets the buffers once this returns; read here, outside the timed region
+        long length = event.isEnabled() ? messageLength() : 0;
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            doSign(out, off);
+        } finally {
+            EdDSAMetrics.sign().record(System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.algorithm = getAlgorithm();
+                event.messageLength = length;
+                event.signatures = 1;
+                event.commit();
+            }
+        }
+    }
+
+    private void doSign(byte[] out, int off) throws SignatureException {
+        if (nativeMode && !prehashMode && NativeEd25519.preferForSigning()) {
+            PrivateKey nativeKey = NativeEd25519.toNative((EdDSAPrivateKey) key);
+            if (nativeKey != null && nativeSign(nativeKey, out, off)) return;
+        }
         Curve curve = key.getParams().getCurve();
         ScalarOps sc = key.getParams().getScalarOps();
         byte[] a = ((EdDSAPrivateKey) key).geta();
 
-        byte[] message;
-        int offset, length;
-        if (oneShotMode) {
-            if (oneShotBytes == null) throw new SignatureException("update() not called first");
-            message = oneShotBytes;
-            offset = oneShotOffset;
-            length = oneShotLength;
-        } else {
-            if (baos == null) message = new byte[0];
-            else message = baos.toByteArray();
-            offset = 0;
-            length = message.length;
-        }
-        // r = H(h_b,...,h_2b-1,M)
-        digest.update(message, offset, length);
+        // r = H(dom2(F,C),h_b,...,h_2b-1,M)
+        // The digest is only primed here, so that a context set after
+        // initSign() is taken into account.
+        digestInitSign((EdDSAPrivateKey) key);
+        finishPrehash();
+        digestMessage();
         byte[] r = digest.digest();
 
         // r mod l
@@ -250,80 +571,244 @@ public final class EdDSAEngine extends Signature {
         GroupElement R = key.getParams().getB().scalarMultiply(r);
         byte[] Rbyte = R.toByteArray();
 
-        // S = (r + H(Rbar,Abar,M)*a) mod l
+        // S = (r + H(dom2(F,C),Rbar,Abar,M)*a) mod l
+        digestDom();
         digest.update(Rbyte);
         digest.update(((EdDSAPrivateKey) key).getAbyte());
-        digest.update(message, offset, length);
+        digestMessage();
         byte[] h = digest.digest();
         h = sc.reduce(h);
         byte[] S = sc.multiplyAndAdd(h, a, r);
 
         // R+S
         int b = curve.getField().getb();
-        ByteBuffer out = ByteBuffer.allocate(b / 4);
-        out.put(Rbyte).put(S);
-        return out.array();
+        System.arraycopy(Rbyte, 0, out, off, b / 8);
+        System.arraycopy(S, 0, out, off + b / 8, b / 8);
     }
 
     @Override
     protected boolean engineVerify(byte[] sigBytes) throws SignatureException {
         try {
-            return x_engineVerify(sigBytes);
+            return x_engineVerify(sigBytes, 0, sigBytes.length);
+        } finally {
+            reset();
+        }
+    }
+
+    /**
+     * Reads the signature in place rather than copying it first.
+     */
+    @Override
+    protected boolean engineVerify(byte[] sigBytes, int offset, int length) throws SignatureException {
+        try {
+            return x_engineVerify(sigBytes, offset, length);
         } finally {
             reset();
         }
     }
 
-    private static final BigInteger BL_ORDER =
-            new BigInteger("2").pow(252).add(new BigInteger("27742317777372353535851937790883648493"));
+    private boolean x_engineVerify(byte[] sigBytes, int sigOff, int sigLen) throws SignatureException {
+        VerifyEvent event = new VerifyEvent();
+        // engineVerify() resets the buffers once this returns; read here, outside the timed region
+        long length = event.isEnabled() ? messageLength() : 0;
+        event.begin();
+        long start = System.nanoTime();
+        boolean valid = false;
+        rejection = null;
+        try {
+            valid = doVerify(sigBytes, sigOff, sigLen);
+            return valid;
+        } finally {
+            EdDSAMetrics.verify().record(System.nanoTime() - start);
+            if (!valid) EdDSAMetrics.verifyFailed();
+            event.end();
+            if (event.shouldCommit()) {
+                event.algorithm = getAlgorithm();
+                event.messageLength = length;
+                event.valid = valid;
+                event.rejection = rejection == null ? null : rejection.name();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * @return the length of the message passed to update(), or -1 if only its hash was kept
+     */
+    private long messageLength() {
+        if (prehashMode) return -1;
+        if (oneShotBytes != null) return oneShotLength;
+        if (oneShotBuffers != null) {
+            long n = 0;
+            for (ByteBuffer bb : oneShotBuffers) n += bb.remaining();
+            return n;
+        }
+        return baos == null ? 0 : baos.size();
+    }
 
-    private boolean x_engineVerify(byte[] sigBytes) throws SignatureException {
+    private boolean doVerify(byte[] sigBytes, int sigOff, int sigLen) throws SignatureException {
         Curve curve = key.getParams().getCurve();
         int b = curve.getField().getb();
-        if (sigBytes.length != b / 4) throw new SignatureException("signature length is wrong");
+        if (sigLen != b / 4) throw new SignatureException("signature length is wrong");
+
+        // Reject S >= L, non-canonical R or A and small-order R or A before doing any hashing or point arithmetic
+        rejection = VerifyPrefilter.check(sigBytes, sigOff, ((EdDSAPublicKey) key).getAbyte());
+        if (rejection != null) {
+            EdDSAMetrics.rejected(rejection);
+            return false;
+        }
+
+        if (nativeMode && !prehashMode && NativeEd25519.preferForVerifying()) {
+            PublicKey nativeKey = NativeEd25519.toNative((EdDSAPublicKey) key);
+            if (nativeKey != null) {
+                Boolean result = nativeVerify(nativeKey, sigBytes, sigOff, sigLen);
+                if (result != null) return result;
+            }
+        }
 
         // R is first b/8 bytes of sigBytes, S is second b/8 bytes
-        digest.update(sigBytes, 0, b / 8);
+        digestDom();
+        digest.update(sigBytes, sigOff, b / 8);
         digest.update(((EdDSAPublicKey) key).getAbyte());
-        // h = H(Rbar,Abar,M)
-        byte[] message;
-        int offset, length;
-        if (oneShotMode) {
-            if (oneShotBytes == null) throw new SignatureException("update() not called first");
-            message = oneShotBytes;
-            offset = oneShotOffset;
-            length = oneShotLength;
-        } else {
-            if (baos == null) message = new byte[0];
-            else message = baos.toByteArray();
-            offset = 0;
-            length = message.length;
+        // h = H(dom2(F,C),Rbar,Abar,M)
+        finishPrehash();
+        digestMessage();
+        try {
+            digest.digest(hBuf, 0, hBuf.length);
+        } catch (DigestException e) {
+            throw new SignatureException(e);
         }
-        digest.update(message, offset, length);
-        byte[] h = digest.digest();
 
         // h mod l
-        h = key.getParams().getScalarOps().reduce(h);
+        byte[] h = key.getParams().getScalarOps().reduce(hBuf);
 
-        byte[] Sbyte = Arrays.copyOfRange(sigBytes, b / 8, b / 4);
-        // RFC 8032
-        BigInteger Sbigint = (new BigIntegerLittleEndianEncoding()).toBigInteger(Sbyte);
-        if (Sbigint.compareTo(BL_ORDER) >= 0) return false;
+        System.arraycopy(sigBytes, sigOff + b / 8, sBuf, 0, b / 8);
 
         // R = SB - H(Rbar,Abar,M)A
         GroupElement R = key.getParams()
                 .getB()
-                .doubleScalarMultiplyVariableTime(((EdDSAPublicKey) key).getNegativeA(), h, Sbyte);
+                .doubleScalarMultiplyVariableTime(((EdDSAPublicKey) key).getNegativeA(), h, sBuf);
 
         // Variable time. This should be okay, because there are no secret
         // values used anywhere in verification.
         byte[] Rcalc = R.toByteArray();
         for (int i = 0; i < Rcalc.length; i++) {
-            if (Rcalc[i] != sigBytes[i]) return false;
+            if (Rcalc[i] != sigBytes[sigOff + i]) return false;
         }
         return true;
     }
 
+    /**
+     * @return false if the JDK would not take the key, so our own code must sign
+     */
+    private boolean nativeSign(PrivateKey nativeKey, byte[] out, int off) throws SignatureException {
+        Signature sig = nativeSignature();
+        if (sig == null) return false;
+        try {
+            sig.initSign(nativeKey);
+        } catch (InvalidKeyException e) {
+            return false;
+        }
+        nativeInit(sig);
+        nativeUpdate(sig);
+        sig.sign(out, off, key.getParams().getCurve().getField().getb() / 4);
+        return true;
+    }
+
+    /**
+     * @return the result, or null if the JDK would not take the key, so our own code must verify
+     */
+    private Boolean nativeVerify(PublicKey nativeKey, byte[] sigBytes, int sigOff, int sigLen)
+            throws SignatureException {
+        Signature sig = nativeSignature();
+        if (sig == null) return null;
+        try {
+            sig.initVerify(nativeKey);
+        } catch (InvalidKeyException e) {
+            return null;
+        }
+        nativeInit(sig);
+        nativeUpdate(sig);
+        try {
+            return sig.verify(sigBytes, sigOff, sigLen);
+        } catch (SignatureException e) {
+            // The JDK throws on some encodings of R that we simply find not to match
+            return false;
+        }
+    }
+
+    private Signature nativeSignature() {
+        if (nativeSignature == null) {
+            try {
+                nativeSignature = NativeEd25519.newSignature();
+            } catch (GeneralSecurityException e) {
+                nativeMode = false;
+            }
+        }
+        return nativeSignature;
+    }
+
+    private void nativeInit(Signature sig) throws SignatureException {
+        if (!contextRequired) return;
+        if (context == null || context.length == 0)
+            throw new SignatureException(getAlgorithm() + " requires a non-empty context");
+        try {
+            sig.setParameter(new java.security.spec.EdDSAParameterSpec(false, context));
+        } catch (InvalidAlgorithmParameterException e) {
+            throw new SignatureException(e);
+        }
+    }
+
+    /**
+     * Feeds the message passed to update() into the JDK signature, as digestMessage() does for the digest.
+     */
+    private void nativeUpdate(Signature sig) throws SignatureException {
+        if (oneShotMode) {
+            if (oneShotBytes != null) {
+                sig.update(oneShotBytes, oneShotOffset, oneShotLength);
+            } else if (oneShotBuffers != null) {
+                for (ByteBuffer bb : oneShotBuffers) sig.update(bb.duplicate());
+            } else {
+                throw new SignatureException("update() not called first");
+            }
+        } else if (baos != null) {
+            baos.writeTo(sig);
+        }
+    }
+
+    /**
+     * For Ed25519ph, completes the SHA-512 of the message that was streamed in by update().
+     */
+    private void finishPrehash() throws SignatureException {
+        if (!prehashMode) return;
+        if (oneShotMode && !prehashUpdated) throw new SignatureException("update() not called first");
+        try {
+            prehash.digest(phBuf, 0, phBuf.length);
+        } catch (DigestException e) {
+            throw new SignatureException(e);
+        }
+    }
+
+    /**
+     * Feeds the message passed to update() into the digest, without copying it.
+     */
+    private void digestMessage() throws SignatureException {
+        if (prehashMode) {
+            // PH(M)
+            digest.update(phBuf);
+        } else if (oneShotMode) {
+            if (oneShotBytes != null) {
+                digest.update(oneShotBytes, oneShotOffset, oneShotLength);
+            } else if (oneShotBuffers != null) {
+                for (ByteBuffer bb : oneShotBuffers) digest.update(bb.duplicate());
+            } else {
+                throw new SignatureException("update() not called first");
+            }
+        } else if (baos != null) {
+            baos.writeTo(digest);
+        }
+    }
+
     /**
      *  To efficiently sign all the data in one shot, if it is available,
      *  use this method, which will avoid copying the data.
@@ -464,20 +949,237 @@ public final class EdDSAEngine extends Signature {
     }
 
     /**
-     * @throws InvalidAlgorithmParameterException if spec is ONE_SHOT_MODE and update() already called
+     *  To efficiently sign all the data in one shot, if it is available,
+     *  use this method, which will read the buffer in place.
+     *
+     * Same as:
+     *<pre>
+     *  setParameter(ONE_SHOT_MODE)
+     *  update(data)
+     *  sig = sign()
+     *</pre>
+     *
+     * @param data the message to be signed, from its position to its limit
+     * @return the signature
+     * @throws SignatureException if update() already called
+     * @see #ONE_SHOT_MODE
+     */
+    public byte[] signOneShot(ByteBuffer data) throws SignatureException {
+        return signOneShot(new ByteBuffer[] {data});
+    }
+
+    /**
+     *  To efficiently sign a message that is scattered over several buffers,
+     *  use this method, which will read the buffers in place.
+     *
+     * @param data the buffers holding the message to be signed, in order,
+     *             each from its position to its limit
+     * @return the signature
+     * @throws SignatureException if update() already called
+     * @see #ONE_SHOT_MODE
+     */
+    public byte[] signOneShot(ByteBuffer[] data) throws SignatureException {
+        updateOneShot(data);
+        return sign();
+    }
+
+    /**
+     *  As signOneShot(ByteBuffer[]), but writes the signature into sig.
+     *
+     * @param data the buffers holding the message to be signed, in order,
+     *             each from its position to its limit
+     * @param sig the array to write the signature to
+     * @param off the start of the signature inside sig
+     * @param len the space available for the signature inside sig
+     * @return the length of the signature
+     * @throws SignatureException if update() already called, or len is too small
+     */
+    public int signOneShot(ByteBuffer[] data, byte[] sig, int off, int len) throws SignatureException {
+        updateOneShot(data);
+        return sign(sig, off, len);
+    }
+
+    /**
+     *  To efficiently verify all the data in one shot, if it is available,
+     *  use this method, which will read the buffer in place.
+     *
+     * Same as:
+     *<pre>
+     *  setParameter(ONE_SHOT_MODE)
+     *  update(data)
+     *  ok = verify(signature)
+     *</pre>
+     *
+     * @param data the message that was signed, from its position to its limit
+     * @param signature of the message
+     * @return true if the signature is valid, false otherwise
+     * @throws SignatureException if update() already called
+     * @see #ONE_SHOT_MODE
+     */
+    public boolean verifyOneShot(ByteBuffer data, byte[] signature) throws SignatureException {
+        return verifyOneShot(new ByteBuffer[] {data}, signature, 0, signature.length);
+    }
+
+    /**
+     *  To efficiently verify a message that is scattered over several buffers,
+     *  use this method, which will read the buffers in place.
+     *
+     * @param data the buffers holding the message that was signed, in order,
+     *             each from its position to its limit
+     * @param signature byte array containing the signature
+     * @param sigoff the start of the signature
+     * @param siglen the length of the signature
+     * @return true if the signature is valid, false otherwise
+     * @throws SignatureException if update() already called
+     * @see #ONE_SHOT_MODE
+     */
+    public boolean verifyOneShot(ByteBuffer[] data, byte[] signature, int sigoff, int siglen)
+            throws SignatureException {
+        updateOneShot(data);
+        return verify(signature, sigoff, siglen);
+    }
+
+    /**
+     *  To sign a whole file without reading it onto the heap, use this method.
+     *  The file is memory-mapped in chunks and both hash passes read the
+     *  mapped regions, so only the OS page cache holds its contents.
+     *
+     * @param file the file to be signed
+     * @return the signature
+     * @throws IOException if the file cannot be read
+     * @throws SignatureException if update() already called
+     * @see #signOneShot(FileChannel)
+     */
+    public byte[] signOneShot(Path file) throws IOException, SignatureException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return signOneShot(channel);
+        }
+    }
+
+    /**
+     *  To sign the whole content of a file without reading it onto the heap,
+     *  use this method. The channel's position is ignored and not changed.
+     *  The file must not be modified until this method returns.
+     *
+     * @param channel a readable channel of the file to be signed
+     * @return the signature
+     * @throws IOException if the file cannot be mapped
+     * @throws SignatureException if update() already called
+     */
+    public byte[] signOneShot(FileChannel channel) throws IOException, SignatureException {
+        return signOneShot(map(channel));
+    }
+
+    /**
+     *  To verify the signature of a whole file without reading it onto the heap,
+     *  use this method.
+     *
+     * @param file the file that was signed
+     * @param signature of the file
+     * @return true if the signature is valid, false otherwise
+     * @throws IOException if the file cannot be read
+     * @throws SignatureException if update() already called
+     * @see #verifyOneShot(FileChannel, byte[])
+     */
+    public boolean verifyOneShot(Path file, byte[] signature) throws IOException, SignatureException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return verifyOneShot(channel, signature);
+        }
+    }
+
+    /**
+     *  To verify the signature of the whole content of a file without reading
+     *  it onto the heap, use this method. The channel's position is ignored and
+     *  not changed. The file must not be modified until this method returns.
+     *
+     * @param channel a readable channel of the file that was signed
+     * @param signature of the file
+     * @return true if the signature is valid, false otherwise
+     * @throws IOException if the file cannot be mapped
+     * @throws SignatureException if update() already called
+     */
+    public boolean verifyOneShot(FileChannel channel, byte[] signature) throws IOException, SignatureException {
+        return verifyOneShot(map(channel), signature, 0, signature.length);
+    }
+
+    /**
+     * Default largest region of a file mapped at once.
+     */
+    static final int MAP_CHUNK_SIZE = 64 << 20;
+
+    private ByteBuffer[] map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunks = (int) ((size + mapChunkSize - 1) / mapChunkSize);
+        ByteBuffer[] regions = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            long pos = (long) i * mapChunkSize;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(mapChunkSize, size - pos));
+        }
+        return regions;
+    }
+
+    /**
+     * @throws InvalidAlgorithmParameterException if spec is ONE_SHOT_MODE or an
+     *         EdDSAContextSpec and update() already called, or if a context is
+     *         given for plain EdDSA
      * @see #ONE_SHOT_MODE
+     * @see EdDSAContextSpec
      */
     @Override
     protected void engineSetParameter(AlgorithmParameterSpec spec) throws InvalidAlgorithmParameterException {
         if (spec.equals(ONE_SHOT_MODE)) {
-            if (oneShotBytes != null || (baos != null && baos.size() > 0))
-                throw new InvalidAlgorithmParameterException("update() already called");
+            if (updateCalled()) throw new InvalidAlgorithmParameterException("update() already called");
             oneShotMode = true;
+        } else if (spec.equals(NATIVE_MODE)) {
+            nativeMode = true;
+        } else if (spec instanceof EdDSAContextSpec) {
+            if (!prehashMode && !contextRequired)
+                throw new InvalidAlgorithmParameterException("context not supported by " + getAlgorithm());
+            if (updateCalled()) throw new InvalidAlgorithmParameterException("update() already called");
+            byte[] ctx = ((EdDSAContextSpec) spec).getContext();
+            if (contextRequired && ctx.length == 0)
+                throw new InvalidAlgorithmParameterException(getAlgorithm() + " requires a non-empty context");
+            context = ctx;
+            dom = null;
+            signPrototype = null;
         } else {
             super.engineSetParameter(spec);
         }
     }
 
+    /**
+     * Returns a copy of this engine, including its key, context and any data
+     * already passed to update(), so that an initialized engine can be
+     * duplicated without repeating initSign() or initVerify().
+     * @throws CloneNotSupportedException if the digest cannot be cloned
+     */
+    @Override
+    public Object clone() throws CloneNotSupportedException {
+        EdDSAEngine copy = (EdDSAEngine) super.clone();
+        copy.nativeSignature = null;
+        if (digest != null) copy.digest = (MessageDigest) digest.clone();
+        if (prehash != null) copy.prehash = (MessageDigest) prehash.clone();
+        if (baos != null) {
+            try {
+                copy.baos = new SegmentedMessageBuffer(baos);
+            } catch (IOException e) {
+                throw new CloneNotSupportedException("cannot copy buffered message: " + e);
+            }
+        }
+        if (hBuf != null) {
+            copy.hBuf = new byte[hBuf.length];
+            copy.sBuf = new byte[sBuf.length];
+        }
+        if (phBuf != null) copy.phBuf = new byte[phBuf.length];
+        if (oneShotBuffers != null) {
+            copy.oneShotBuffers = new ByteBuffer[oneShotBuffers.length];
+            for (int i = 0; i < oneShotBuffers.length; i++) {
+                copy.oneShotBuffers[i] = oneShotBuffers[i].duplicate();
+            }
+        }
+        return copy;
+    }
+
     /**
      * @deprecated
      */
@@ -0,0 +1,208 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide counters and latency histograms for the work done by this
+ * library, so that its CPU use can be monitored.
+ *<p>
+ * Recording costs two calls to System.nanoTime() and a few uncontended
+ * LongAdder increments per operation, which is negligible next to the
+ * curve arithmetic being timed.
+ *</p>
+ */
+public final class EdDSAMetrics {
+    private static final Timer SIGN = new Timer();
+    private static final Timer VERIFY = new Timer();
+    private static final Timer KEY_DECODE = new Timer();
+    private static final Timer KEY_DERIVE = new Timer();
+    private static final LongAdder verifyFailures = new LongAdder();
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder[] rejections = new LongAdder[Rejection.values().length];
+
+    static {
+        for (int i = 0; i < rejections.length; i++) rejections[i] = new LongAdder();
+    }
+
+    /**
+     * Why {@link EdDSAEngine} turned a signature away without verifying it.
+     */
+    public enum Rejection {
+        /** S is not less than the group order. */
+        NON_CANONICAL_S,
+        /** R is encoded with y &gt;= p. */
+        NON_CANONICAL_R,
+        /** The public key is encoded with y &gt;= p. */
+        NON_CANONICAL_A,
+        /** R is a point of small order. */
+        SMALL_ORDER_R,
+        /** The public key is a point of small order. */
+        SMALL_ORDER_A
+    }
+
+    private EdDSAMetrics() {}
+
+    /**
+     * A count of operations and a histogram of how long they took, with
+     * buckets at powers of two nanoseconds.
+     */
+    public static final class Timer {
+        private static final int BUCKETS = 64;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        Timer() {
+            for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+        }
+
+        /**
+         * @param nanos how long one operation took
+         */
+        public void record(long nanos) {
+            record(1, nanos);
+        }
+
+        /**
+         * @param n the number of operations
+         * @param nanos how long they took together
+         */
+        public void record(int n, long nanos) {
+            if (n <= 0) return;
+            if (nanos < 0) nanos = 0;
+            count.add(n);
+            totalNanos.add(nanos);
+            buckets[63 - Long.numberOfLeadingZeros(Math.max(1, nanos / n))].add(n);
+        }
+
+        /**
+         * @return the number of operations recorded
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the total time taken by all operations
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return the mean time per operation, or 0 if none were recorded
+         */
+        public long getMeanNanos() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalNanos.sum() / n;
+        }
+
+        /**
+         * @param quantile between 0 and 1, e.g. 0.99
+         * @return an upper bound, within a factor of two, on the time within
+         *         which that fraction of operations completed, or 0 if none
+         *         were recorded
+         */
+        public long getQuantileNanos(double quantile) {
+            long[] counts = new long[BUCKETS];
+            long n = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets[i].sum();
+                n += counts[i];
+            }
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(quantile * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                seen += counts[i];
+                if (seen >= rank) return (2L << i) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * @return signatures made by {@link EdDSAEngine}
+     */
+    public static Timer sign() {
+        return SIGN;
+    }
+
+    /**
+     * @return signatures checked by {@link EdDSAEngine}, valid or not
+     */
+    public static Timer verify() {
+        return VERIFY;
+    }
+
+    /**
+     * @return public keys decoded from their encoded point
+     */
+    public static Timer keyDecode() {
+        return KEY_DECODE;
+    }
+
+    /**
+     * @return public points derived from private keys, A = aB
+     */
+    public static Timer keyDerive() {
+        return KEY_DERIVE;
+    }
+
+    /**
+     * @return how many signatures checked were invalid
+     */
+    public static long getVerifyFailures() {
+        return verifyFailures.sum();
+    }
+
+    /**
+     * @return how often {@link Ed25519VerificationCache}s found a signature
+     */
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return how often {@link Ed25519VerificationCache}s had to verify
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @param reason a reason for rejecting signatures
+     * @return how many signatures were rejected for it, which are also counted as failures
+     */
+    public static long getRejections(Rejection reason) {
+        return rejections[reason.ordinal()].sum();
+    }
+
+    static void rejected(Rejection reason) {
+        rejections[reason.ordinal()].increment();
+    }
+
+    static void verifyFailed() {
+        verifyFailures.increment();
+    }
+
+    static void cacheHit() {
+        cacheHits.increment();
+    }
+
+    static void cacheMiss() {
+        cacheMisses.increment();
+    }
+}
@@ -11,6 +11,8 @@
  */
 package net.i2p.crypto.eddsa;
 
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
@@ -41,9 +43,16 @@ public class EdDSAPrivateKey implements EdDSAKey, PrivateKey {
     private final byte[] seed;
     private final byte[] h;
     private final byte[] a;
-    private final GroupElement A;
-    private final byte[] Abyte;
+    // A and Abyte are derived on first use, see getA()
+    private GroupElement A;
+    private volatile byte[] Abyte;
     private final EdDSAParameterSpec edDsaSpec;
+    // Shares the spec's A, which may already be known
+    private final EdDSAPrivateKeySpec keySpec;
+    // Set once a provided A has been checked against a, see checkPublicKey()
+    private transient volatile boolean publicKeyChecked;
+    // The same key as a JDK key, see NativeEd25519
+    private transient volatile PrivateKey nativeKey;
 
     // OID 1.3.101.xxx
     private static final int OID_OLD = 100;
@@ -55,9 +64,16 @@ public class EdDSAPrivateKey implements EdDSAKey, PrivateKey {
         this.seed = spec.getSeed();
         this.h = spec.getH();
         this.a = spec.geta();
-        this.A = spec.getA();
-        this.Abyte = this.A.toByteArray();
         this.edDsaSpec = spec.getParams();
+        this.keySpec = spec;
+    }
+
+    /**
+     * For callers that have already encoded A, e.g. with {@link GroupElement#toByteArrays(GroupElement[])}.
+     */
+    EdDSAPrivateKey(EdDSAPrivateKeySpec spec, byte[] Abyte) {
+        this(spec);
+        this.Abyte = Abyte;
     }
 
     public EdDSAPrivateKey(PKCS8EncodedKeySpec spec) throws InvalidKeySpecException {
@@ -290,6 +306,32 @@ public class EdDSAPrivateKey implements EdDSAKey, PrivateKey {
         return h;
     }
 
+    /**
+     *  Checks, the first time the key is used for signing, that a public key
+     *  which came with the private key rather than being derived from it really
+     *  is aB. Signing the same message under two different values of A gives
+     *  the same r with two different hashes, which reveals a.
+     *
+     *  @throws InvalidKeyException if the public key does not belong to the private key
+     */
+    void checkPublicKey() throws InvalidKeyException {
+        if (publicKeyChecked) return;
+        if (keySpec.isAProvided()) {
+            byte[] derived = edDsaSpec.getB().scalarMultiply(a).toByteArray();
+            if (!MessageDigest.isEqual(derived, getAbyte()))
+                throw new InvalidKeyException("public key does not belong to the private key");
+        }
+        publicKeyChecked = true;
+    }
+
+    PrivateKey getNativeKey() {
+        return nativeKey;
+    }
+
+    void setNativeKey(PrivateKey nativeKey) {
+        this.nativeKey = nativeKey;
+    }
+
     /**
      *  @return the private key
      */
@@ -298,17 +340,31 @@ public class EdDSAPrivateKey implements EdDSAKey, PrivateKey {
     }
 
     /**
+     *  The public key is derived from the private key on first use, so that
+     *  keys which are only listed, stored or re-encoded never need it.
+     *
      *  @return the public key
      */
     public GroupElement getA() {
-        return A;
+        // Only read A once, as in EdDSAPublicKey.getNegativeA()
+        GroupElement ourA = A;
+        if (ourA == null) {
+            ourA = keySpec.getA();
+            A = ourA;
+        }
+        return ourA;
     }
 
     /**
      *  @return the public key
      */
     public byte[] getAbyte() {
-        return Abyte;
+        byte[] ourAbyte = Abyte;
+        if (ourAbyte == null) {
+            ourAbyte = getA().toByteArray();
+            Abyte = ourAbyte;
+        }
+        return ourAbyte;
     }
 
     @Override
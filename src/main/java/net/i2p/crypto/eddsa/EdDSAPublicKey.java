@@ -40,6 +40,8 @@ public class EdDSAPublicKey implements EdDSAKey, PublicKey {
     private static final long serialVersionUID = 9837459837498475L;
     private final GroupElement A;
     private GroupElement Aneg = null;
+    // The same key as a JDK key, see NativeEd25519
+    private transient volatile PublicKey nativeKey;
     private final byte[] Abyte;
     private final EdDSAParameterSpec edDsaSpec;
 
@@ -55,6 +57,15 @@ public class EdDSAPublicKey implements EdDSAKey, PublicKey {
         this.edDsaSpec = spec.getParams();
     }
 
+    /**
+     * For callers that have already encoded A, e.g. with {@link GroupElement#toByteArrays(GroupElement[])}.
+     */
+    EdDSAPublicKey(EdDSAPublicKeySpec spec, byte[] Abyte) {
+        this.A = spec.getA();
+        this.Abyte = Abyte;
+        this.edDsaSpec = spec.getParams();
+    }
+
     public EdDSAPublicKey(X509EncodedKeySpec spec) throws InvalidKeySpecException {
         this(new EdDSAPublicKeySpec(decode(spec.getEncoded()), EdDSANamedCurveTable.ED_25519_CURVE_SPEC));
     }
@@ -251,6 +262,14 @@ public class EdDSAPublicKey implements EdDSAKey, PublicKey {
         return ourAneg;
     }
 
+    PublicKey getNativeKey() {
+        return nativeKey;
+    }
+
+    void setNativeKey(PublicKey nativeKey) {
+        this.nativeKey = nativeKey;
+    }
+
     public byte[] getAbyte() {
         return Abyte;
     }
@@ -12,12 +12,21 @@
 package net.i2p.crypto.eddsa;
 
 import java.security.AccessController;
+import java.security.InvalidParameterException;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivilegedAction;
 import java.security.Provider;
 import java.security.Security;
+import java.util.Arrays;
 
 /**
  * A security {@link Provider} that can be registered via {@link Security#addProvider(Provider)}
+ *<p>
+ * Setting the system property {@link #NATIVE_PROPERTY} to true makes every
+ * {@link EdDSAEngine}, whether obtained from this provider or created
+ * directly, delegate to the JDK's own Ed25519 where that is faster, once
+ * {@link #selectNativeOperations()} has found out where it is.
+ *</p>
  *
  * @author str4d
  */
@@ -25,6 +34,57 @@ public class EdDSASecurityProvider extends Provider {
     private static final long serialVersionUID = 1210027906682292307L;
     public static final String PROVIDER_NAME = "EdDSA";
 
+    /**
+     * System property that turns on {@link EdDSAEngine#NATIVE_MODE} for all engines.
+     */
+    public static final String NATIVE_PROPERTY = "net.i2p.crypto.eddsa.native";
+
+    /**
+     * System property giving the number of bytes that an {@link EdDSAEngine} keeps
+     * in memory when a message is streamed through update() outside one-shot mode,
+     * before moving it to a temporary file. The default is 64 MiB; -1 keeps
+     * messages in memory whatever their size.
+     */
+    public static final String SPILL_THRESHOLD_PROPERTY = "net.i2p.crypto.eddsa.spillThreshold";
+
+    /**
+     * System property that makes {@link #selectDigestProviders()} time every
+     * installed provider of each digest and pick the fastest, instead of the
+     * most preferred one.
+     */
+    public static final String DIGEST_BENCHMARK_PROPERTY = "net.i2p.crypto.eddsa.benchmarkDigests";
+
+    /**
+     * Picks the providers of SHA-512 and SHA-256 for all later EdDSA operations,
+     * so that they no longer look providers up each time. Call it once all
+     * providers are registered, and again if they change; until then the JCA
+     * provider order is followed on every use. With
+     * {@link #DIGEST_BENCHMARK_PROPERTY} set this takes some tens of
+     * milliseconds, so call it off the request path.
+     */
+    public static void selectDigestProviders() {
+        Digests.select();
+    }
+
+    /**
+     * Times the JDK's own Ed25519 against ours and lets engines in
+     * {@link EdDSAEngine#NATIVE_MODE} use it for signing or verifying where
+     * it is faster. Until this is called they use our implementation. It takes
+     * some hundreds of milliseconds, so call it off the request path, after
+     * the providers are registered.
+     */
+    public static void selectNativeOperations() {
+        NativeEd25519.select();
+    }
+
+    /**
+     * @return whether engines start in {@link EdDSAEngine#NATIVE_MODE}, as
+     * {@link #NATIVE_PROPERTY} was read when this library was loaded
+     */
+    public static boolean isNativeByDefault() {
+        return NativeEd25519.DEFAULT;
+    }
+
     public EdDSASecurityProvider() {
         super(
                 PROVIDER_NAME,
@@ -42,21 +102,71 @@ public class EdDSASecurityProvider extends Provider {
 
     protected void setup() {
         // See https://docs.oracle.com/javase/8/docs/technotes/guides/security/crypto/HowToImplAProvider.html
-        put("KeyFactory." + EdDSAKey.KEY_ALGORITHM, "net.i2p.crypto.eddsa.KeyFactory");
-        put("KeyPairGenerator." + EdDSAKey.KEY_ALGORITHM, "net.i2p.crypto.eddsa.KeyPairGenerator");
-        put("Signature." + EdDSAEngine.SIGNATURE_ALGORITHM, "net.i2p.crypto.eddsa.EdDSAEngine");
-
-        // OID Mappings
-        // See section "Mapping from OID to name".
-        // The Key* -> OID mappings correspond to the default algorithm in KeyPairGenerator.
+        //
+        // OID aliases: the Key* -> OID mappings correspond to the default algorithm in KeyPairGenerator.
         //
         // From draft-ieft-curdle-pkix-04:
         //   id-Ed25519   OBJECT IDENTIFIER ::= { 1 3 101 112 }
-        put("Alg.Alias.KeyFactory.1.3.101.112", EdDSAKey.KEY_ALGORITHM);
-        put("Alg.Alias.KeyFactory.OID.1.3.101.112", EdDSAKey.KEY_ALGORITHM);
-        put("Alg.Alias.KeyPairGenerator.1.3.101.112", EdDSAKey.KEY_ALGORITHM);
-        put("Alg.Alias.KeyPairGenerator.OID.1.3.101.112", EdDSAKey.KEY_ALGORITHM);
-        put("Alg.Alias.Signature.1.3.101.112", EdDSAEngine.SIGNATURE_ALGORITHM);
-        put("Alg.Alias.Signature.OID.1.3.101.112", EdDSAEngine.SIGNATURE_ALGORITHM);
+        putService(new EdDSAService(
+                this,
+                "KeyFactory",
+                EdDSAKey.KEY_ALGORITHM,
+                "net.i2p.crypto.eddsa.KeyFactory",
+                "1.3.101.112",
+                "OID.1.3.101.112",
+                "Ed25519"));
+        putService(new EdDSAService(
+                this,
+                "KeyPairGenerator",
+                EdDSAKey.KEY_ALGORITHM,
+                "net.i2p.crypto.eddsa.KeyPairGenerator",
+                "1.3.101.112",
+                "OID.1.3.101.112",
+                "Ed25519"));
+        putService(new EdDSAService(
+                this,
+                "Signature",
+                EdDSAEngine.SIGNATURE_ALGORITHM,
+                "net.i2p.crypto.eddsa.EdDSAEngine",
+                "1.3.101.112",
+                "OID.1.3.101.112",
+                "Ed25519"));
+        putService(new EdDSAService(
+                this, "Signature", EdDSAEngine.ED25519PH_ALGORITHM, "net.i2p.crypto.eddsa.EdDSAEngine"));
+        putService(new EdDSAService(
+                this, "Signature", EdDSAEngine.ED25519CTX_ALGORITHM, "net.i2p.crypto.eddsa.EdDSAEngine"));
+    }
+
+    /**
+     * Creates our implementations directly, rather than through reflection
+     * on the class name as the default Provider.Service does.
+     */
+    private static final class EdDSAService extends Service {
+        EdDSAService(Provider provider, String type, String algorithm, String className, String... aliases) {
+            super(provider, type, algorithm, className, Arrays.asList(aliases), null);
+        }
+
+        @Override
+        public Object newInstance(Object constructorParameter) throws NoSuchAlgorithmException {
+            if (constructorParameter != null)
+                throw new InvalidParameterException("constructorParameter not used with " + getType() + " engines");
+            switch (getType()) {
+                case "KeyFactory":
+                    return new KeyFactory();
+                case "KeyPairGenerator":
+                    return new KeyPairGenerator();
+                case "Signature":
+                    switch (getAlgorithm()) {
+                        case EdDSAEngine.ED25519PH_ALGORITHM:
+                            return EdDSAEngine.ed25519ph();
+                        case EdDSAEngine.ED25519CTX_ALGORITHM:
+                            return EdDSAEngine.ed25519ctx();
+                        default:
+                            return new EdDSAEngine();
+                    }
+                default:
+                    throw new NoSuchAlgorithmException("no such service: " + getType() + "." + getAlgorithm());
+            }
+        }
     }
 }
@@ -15,9 +15,13 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidParameterException;
 import java.security.KeyPair;
 import java.security.KeyPairGeneratorSpi;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
 import java.util.Hashtable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import net.i2p.crypto.eddsa.math.GroupElement;
 import net.i2p.crypto.eddsa.spec.EdDSAGenParameterSpec;
 import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
 import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
@@ -27,6 +31,11 @@ import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
 
 /**
  *  Default keysize is 256 (Ed25519)
+ *<p>
+ *  Unless a SecureRandom is passed to initialize(), seeds come from a DRBG
+ *  instance kept per thread, so that threads generating keys do not contend
+ *  on a shared source.
+ *</p>
  */
 public final class KeyPairGenerator extends KeyPairGeneratorSpi {
     private static final int DEFAULT_KEYSIZE = 256;
@@ -66,15 +75,115 @@ public final class KeyPairGenerator extends KeyPairGeneratorSpi {
     }
 
     public KeyPair generateKeyPair() {
-        if (!initialized) initialize(DEFAULT_KEYSIZE, new SecureRandom());
+        if (!initialized) initialize(DEFAULT_KEYSIZE, null);
 
         byte[] seed = new byte[edParams.getCurve().getField().getb() / 8];
-        random.nextBytes(seed);
+        (random != null ? random : drbgs.get()).nextBytes(seed);
 
         EdDSAPrivateKeySpec privKey = new EdDSAPrivateKeySpec(seed, edParams);
         EdDSAPublicKeySpec pubKey = new EdDSAPublicKeySpec(privKey.getA(), edParams);
+        // Encode A only once for both keys
+        byte[] Abyte = privKey.getA().toByteArray();
 
-        return new KeyPair(new EdDSAPublicKey(pubKey), new EdDSAPrivateKey(privKey));
+        return new KeyPair(new EdDSAPublicKey(pubKey, Abyte), new EdDSAPrivateKey(privKey, Abyte.clone()));
+    }
+
+    /**
+     * Generates many key pairs at once. The keys are derived in parallel on
+     * the common ForkJoinPool, and the public keys of each chunk are encoded
+     * with a single shared inversion.
+     *<p>
+     * If a SecureRandom was passed to initialize(), all seeds are read from it
+     * in order on the calling thread; otherwise each worker fills the seeds
+     * of its chunk from its own DRBG.
+     *</p>
+     * @param count the number of key pairs
+     * @return the key pairs
+     * @throws IllegalArgumentException if count is negative
+     */
+    public KeyPair[] generateKeyPairs(int count) {
+        if (count < 0) throw new IllegalArgumentException("negative count");
+        if (!initialized) initialize(DEFAULT_KEYSIZE, null);
+
+        KeyPair[] pairs = new KeyPair[count];
+        byte[][] seeds = new byte[count][];
+        if (random != null) {
+            for (int i = 0; i < count; i++) {
+                seeds[i] = new byte[edParams.getCurve().getField().getb() / 8];
+                random.nextBytes(seeds[i]);
+            }
+        }
+        if (count <= BULK_CHUNK_SIZE) {
+            generate(edParams, seeds, pairs, 0, count);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BulkGenerate(edParams, seeds, pairs, 0, count));
+        }
+        return pairs;
+    }
+
+    private static final int BULK_CHUNK_SIZE = 32;
+
+    private static final ThreadLocal<SecureRandom> drbgs = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            try {
+                return SecureRandom.getInstance("DRBG");
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    };
+
+    /**
+     * Fills pairs[from] to pairs[to - 1], generating any missing seeds.
+     */
+    private static void generate(EdDSAParameterSpec params, byte[][] seeds, KeyPair[] pairs, int from, int to) {
+        int n = to - from;
+        EdDSAPrivateKeySpec[] privKeys = new EdDSAPrivateKeySpec[n];
+        GroupElement[] A = new GroupElement[n];
+        for (int i = 0; i < n; i++) {
+            byte[] seed = seeds[from + i];
+            if (seed == null) {
+                seed = new byte[params.getCurve().getField().getb() / 8];
+                drbgs.get().nextBytes(seed);
+            }
+            privKeys[i] = new EdDSAPrivateKeySpec(seed, params);
+            A[i] = privKeys[i].getA();
+        }
+        byte[][] Abytes = GroupElement.toByteArrays(A);
+        for (int i = 0; i < n; i++) {
+            pairs[from + i] = new KeyPair(
+                    new EdDSAPublicKey(new EdDSAPublicKeySpec(A[i], params), Abytes[i]),
+                    new EdDSAPrivateKey(privKeys[i], Abytes[i].clone()));
+        }
+    }
+
+    private static final class BulkGenerate extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final EdDSAParameterSpec params;
+        private final byte[][] seeds;
+        private final KeyPair[] pairs;
+        private final int from;
+        private final int to;
+
+        BulkGenerate(EdDSAParameterSpec params, byte[][] seeds, KeyPair[] pairs, int from, int to) {
+            this.params = params;
+            this.seeds = seeds;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BULK_CHUNK_SIZE) {
+                generate(params, seeds, pairs, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(
+                    new BulkGenerate(params, seeds, pairs, from, mid), new BulkGenerate(params, seeds, pairs, mid, to));
+        }
     }
 
     /**
@@ -0,0 +1,222 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Security;
+import java.security.Signature;
+import java.security.spec.EdECPoint;
+import java.security.spec.EdECPrivateKeySpec;
+import java.security.spec.EdECPublicKeySpec;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.NamedParameterSpec;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+
+/**
+ * Access to the JDK's own Ed25519 (SunEC on JDK 15 and later), for
+ * {@link EdDSAEngine#NATIVE_MODE}.
+ *<p>
+ * Whether it is actually used for signing and for verifying is decided
+ * separately by timing both implementations in {@link #select()}, which
+ * takes some hundreds of milliseconds and so is left to a background thread,
+ * see {@link EdDSASecurityProvider#selectNativeOperations()}. Until then our
+ * own implementation is used.
+ *</p>
+ */
+final class NativeEd25519 {
+    private static final Logger LOGGER = Logger.getLogger(NativeEd25519.class.getName());
+    private static final String ALGORITHM = "Ed25519";
+    // Enough for both implementations to be compiled before they are timed
+    private static final int WARMUP_ROUNDS = 500;
+    private static final int TIMED_ROUNDS = 100;
+
+    /**
+     * Whether engines start in native mode, see {@link EdDSASecurityProvider#NATIVE_PROPERTY}.
+     */
+    static final boolean DEFAULT = Boolean.getBoolean(EdDSASecurityProvider.NATIVE_PROPERTY);
+
+    /**
+     * For tests: force the choice instead of benchmarking.
+     */
+    static volatile Boolean forced;
+
+    // Set by select()
+    private static volatile boolean sign;
+    private static volatile boolean verify;
+
+    private NativeEd25519() {}
+
+    /**
+     * Resolved on first use, so that merely loading the engine costs nothing.
+     */
+    private static final class Holder {
+        static final Provider PROVIDER = findProvider();
+        static final KeyFactory KEY_FACTORY = keyFactory(PROVIDER);
+    }
+
+    /**
+     * Times both implementations and from then on uses the JDK for whichever
+     * of signing and verifying it is faster at.
+     */
+    static void select() {
+        if (Holder.KEY_FACTORY == null) return;
+        try {
+            long[] times = benchmark();
+            sign = times[1] < times[0];
+            verify = times[3] < times[2];
+            LOGGER.log(Level.FINE, "JDK Ed25519 used for signing: {0}, for verifying: {1}", new Object[] {
+                sign, verify
+            });
+        } catch (GeneralSecurityException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not time the JDK Ed25519, not using it", e);
+        }
+    }
+
+    private static Provider findProvider() {
+        Provider[] providers = Security.getProviders("Signature." + ALGORITHM);
+        if (providers == null) return null;
+        for (Provider p : providers) {
+            if (!(p instanceof EdDSASecurityProvider) && p.getService("KeyFactory", ALGORITHM) != null) return p;
+        }
+        return null;
+    }
+
+    private static KeyFactory keyFactory(Provider provider) {
+        if (provider == null) return null;
+        try {
+            return KeyFactory.getInstance(ALGORITHM, provider);
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether to sign with the JDK
+     */
+    static boolean preferForSigning() {
+        Boolean f = forced;
+        return f != null ? f && Holder.KEY_FACTORY != null : sign;
+    }
+
+    /**
+     * @return whether to verify with the JDK
+     */
+    static boolean preferForVerifying() {
+        Boolean f = forced;
+        return f != null ? f && Holder.KEY_FACTORY != null : verify;
+    }
+
+    /**
+     * @return a new JDK Ed25519 signature object
+     */
+    static Signature newSignature() throws GeneralSecurityException {
+        return Signature.getInstance(ALGORITHM, Holder.PROVIDER);
+    }
+
+    /**
+     * Converts directly from the seed, without DER encoding.
+     * @return the JDK key, or null if the key has no seed or is not an Ed25519 key
+     */
+    static PrivateKey toNative(EdDSAPrivateKey key) {
+        if (key.getSeed() == null || !EdDSANamedCurveTable.ED_25519_CURVE_SPEC.equals(key.getParams())) return null;
+        PrivateKey nk = key.getNativeKey();
+        if (nk == null) {
+            try {
+                nk = Holder.KEY_FACTORY.generatePrivate(
+                        new EdECPrivateKeySpec(NamedParameterSpec.ED25519, key.getSeed()));
+            } catch (InvalidKeySpecException e) {
+                return null;
+            }
+            key.setNativeKey(nk);
+        }
+        return nk;
+    }
+
+    /**
+     * Converts directly from the encoded point, without DER encoding.
+     * @return the JDK key, or null if the key is not an Ed25519 key or the JDK rejects it
+     */
+    static PublicKey toNative(EdDSAPublicKey key) {
+        if (!EdDSANamedCurveTable.ED_25519_CURVE_SPEC.equals(key.getParams())) return null;
+        PublicKey nk = key.getNativeKey();
+        if (nk == null) {
+            byte[] enc = key.getAbyte();
+            // y little-endian with the sign of x in the top bit
+            boolean xOdd = (enc[enc.length - 1] & 0x80) != 0;
+            byte[] be = new byte[enc.length];
+            for (int i = 0; i < enc.length; i++) be[i] = enc[enc.length - 1 - i];
+            be[0] &= 0x7f;
+            try {
+                nk = Holder.KEY_FACTORY.generatePublic(
+                        new EdECPublicKeySpec(NamedParameterSpec.ED25519, new EdECPoint(xOdd, new BigInteger(1, be))));
+            } catch (InvalidKeySpecException e) {
+                return null;
+            }
+            key.setNativeKey(nk);
+        }
+        return nk;
+    }
+
+    /**
+     * @return ns for our sign, JDK sign, our verify, JDK verify
+     */
+    private static long[] benchmark() throws GeneralSecurityException {
+        EdDSAPrivateKey priv =
+                new EdDSAPrivateKey(new EdDSAPrivateKeySpec(new byte[32], EdDSANamedCurveTable.ED_25519_CURVE_SPEC));
+        EdDSAPublicKey pub =
+                new EdDSAPublicKey(new EdDSAPublicKeySpec(priv.getA(), EdDSANamedCurveTable.ED_25519_CURVE_SPEC));
+        byte[] msg = new byte[64];
+        EdDSAEngine ours = new EdDSAEngine();
+        ours.nativeMode = false;
+        Signature jdk = newSignature();
+        PrivateKey nPriv = toNative(priv);
+        PublicKey nPub = toNative(pub);
+        if (nPriv == null || nPub == null) throw new InvalidKeySpecException("cannot convert keys");
+
+        ours.initSign(priv);
+        byte[] sig = ours.signOneShot(msg);
+        long[] times = new long[4];
+        for (int pass = 0; pass < 2; pass++) {
+            int rounds = pass == 0 ? WARMUP_ROUNDS : TIMED_ROUNDS;
+            long t0 = System.nanoTime();
+            ours.initSign(priv);
+            for (int i = 0; i < rounds; i++) ours.signOneShot(msg);
+            long t1 = System.nanoTime();
+            jdk.initSign(nPriv);
+            for (int i = 0; i < rounds; i++) {
+                jdk.update(msg);
+                jdk.sign();
+            }
+            long t2 = System.nanoTime();
+            ours.initVerify(pub);
+            for (int i = 0; i < rounds; i++) ours.verifyOneShot(msg, sig);
+            long t3 = System.nanoTime();
+            jdk.initVerify(nPub);
+            for (int i = 0; i < rounds; i++) {
+                jdk.update(msg);
+                jdk.verify(sig);
+            }
+            long t4 = System.nanoTime();
+            times = new long[] {t1 - t0, t2 - t1, t3 - t2, t4 - t3};
+        }
+        return times;
+    }
+}
@@ -0,0 +1,286 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the message given to update() outside one-shot mode, until sign() or
+ * verify() hashes it, twice when signing.
+ * <p>
+ * The message is kept in segments that are never copied once written, each twice
+ * the size of the one before up to {@link #MAX_SEGMENT}, and is fed to the digest
+ * a segment at a time. Once it grows past the spill threshold, the segments are
+ * written to a temporary file readable only by the owner, and further data is
+ * appended to the file, so a large streamed message needs a bounded amount of heap.
+ * The file is deleted by reset(), or when the buffer is garbage collected.
+ */
+final class SegmentedMessageBuffer {
+    static final int FIRST_SEGMENT = 256;
+    static final int MAX_SEGMENT = 64 * 1024;
+
+    /**
+     * The spill threshold of new engines, from the system property
+     * {@link EdDSASecurityProvider#SPILL_THRESHOLD_PROPERTY}. Negative means never.
+     */
+    static final long DEFAULT_SPILL_THRESHOLD =
+            Long.getLong(EdDSASecurityProvider.SPILL_THRESHOLD_PROPERTY, 64L * 1024 * 1024);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final long spillThreshold;
+    private final List<byte[]> segments = new ArrayList<byte[]>();
+    // bytes used in the last segment
+    private int last;
+    private long size;
+    private Spill spill;
+
+    /**
+     * The temporary file, kept separate from the buffer so that the cleaner
+     * does not keep the buffer reachable.
+     */
+    private static final class Spill implements Runnable {
+        final Path path;
+        final FileChannel channel;
+
+        Spill(Path path, FileChannel channel) {
+            this.path = path;
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private Cleaner.Cleanable cleanable;
+
+    /**
+     * @param spillThreshold the size above which the message is moved to a file, or a negative number for never
+     */
+    SegmentedMessageBuffer(long spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * Copies another buffer, including any spilled part.
+     */
+    SegmentedMessageBuffer(SegmentedMessageBuffer other) throws IOException {
+        this(other.spillThreshold);
+        if (other.spill != null) {
+            other.flush();
+            startSpill();
+            FileChannel from = other.spill.channel;
+            for (long pos = 0, end = from.size(); pos < end; ) {
+                pos += from.transferTo(pos, end - pos, spill.channel);
+            }
+            size = other.size - other.heapSize();
+        }
+        for (int i = 0; i < other.segments.size(); i++) {
+            byte[] seg = other.segments.get(i);
+            write(seg, 0, i == other.segments.size() - 1 ? other.last : seg.length);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    void write(int b) throws IOException {
+        if (segments.isEmpty() || last == current().length) addSegment(1);
+        current()[last++] = (byte) b;
+        size++;
+        maybeSpill();
+    }
+
+    void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (segments.isEmpty() || last == current().length) addSegment(len);
+            int n = Math.min(len, current().length - last);
+            System.arraycopy(b, off, current(), last, n);
+            last += n;
+            size += n;
+            off += n;
+            len -= n;
+            maybeSpill();
+        }
+    }
+
+    void write(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            if (segments.isEmpty() || last == current().length) addSegment(src.remaining());
+            int n = Math.min(src.remaining(), current().length - last);
+            src.get(current(), last, n);
+            last += n;
+            size += n;
+            maybeSpill();
+        }
+    }
+
+    void writeTo(MessageDigest md) throws SignatureException {
+        if (spill != null) {
+            readSpill(bb -> md.update(bb));
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            byte[] seg = segments.get(i);
+            md.update(seg, 0, i == segments.size() - 1 ? last : seg.length);
+        }
+    }
+
+    void writeTo(Signature sig) throws SignatureException {
+        if (spill != null) {
+            readSpill(bb -> sig.update(bb));
+        }
+        for (int i = 0; i < segments.size(); i++) {
+            byte[] seg = segments.get(i);
+            sig.update(seg, 0, i == segments.size() - 1 ? last : seg.length);
+        }
+    }
+
+    /**
+     * Empties the buffer, keeping the first segment and deleting any file.
+     */
+    void reset() {
+        if (segments.size() > 1) {
+            byte[] first = segments.get(0);
+            segments.clear();
+            segments.add(first);
+        }
+        last = 0;
+        size = 0;
+        if (spill != null) {
+            cleanable.clean();
+            spill = null;
+            cleanable = null;
+        }
+    }
+
+    boolean isSpilled() {
+        return spill != null;
+    }
+
+    private byte[] current() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private void addSegment(int wanted) {
+        int len;
+        if (segments.isEmpty()) {
+            len = Math.max(FIRST_SEGMENT, Math.min(wanted, MAX_SEGMENT));
+        } else {
+            len = Math.min(current().length << 1, MAX_SEGMENT);
+        }
+        segments.add(new byte[len]);
+        last = 0;
+    }
+
+    private long heapSize() {
+        long n = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            n += i == segments.size() - 1 ? last : segments.get(i).length;
+        }
+        return n;
+    }
+
+    /**
+     * Moves full segments to the file once past the threshold. After that,
+     * the heap holds at most the segment being filled.
+     */
+    private void maybeSpill() throws IOException {
+        if (spillThreshold < 0) return;
+        if (spill == null) {
+            if (size <= spillThreshold) return;
+            startSpill();
+        }
+        if (segments.size() > 1 || last == current().length) {
+            flush();
+        }
+    }
+
+    private void startSpill() throws IOException {
+        Path path;
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            path = Files.createTempFile(
+                    "eddsa", ".msg", PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            path = Files.createTempFile("eddsa", ".msg");
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        spill = new Spill(path, channel);
+        cleanable = CLEANER.register(this, spill);
+    }
+
+    /**
+     * Appends the segments to the file, keeping the last one for reuse.
+     */
+    private void flush() throws IOException {
+        if (spill == null) return;
+        byte[] keep = current();
+        for (int i = 0; i < segments.size(); i++) {
+            byte[] seg = segments.get(i);
+            ByteBuffer bb = ByteBuffer.wrap(seg, 0, i == segments.size() - 1 ? last : seg.length);
+            while (bb.hasRemaining()) spill.channel.write(bb);
+        }
+        segments.clear();
+        segments.add(keep);
+        last = 0;
+    }
+
+    private interface Sink {
+        void accept(ByteBuffer bb) throws SignatureException;
+    }
+
+    private void readSpill(Sink sink) throws SignatureException {
+        try {
+            ByteBuffer bb = ByteBuffer.allocate(MAX_SEGMENT);
+            long pos = 0;
+            long end = spill.channel.size();
+            while (pos < end) {
+                bb.clear();
+                int n = spill.channel.read(bb, pos);
+                if (n < 0) throw new IOException("spill file truncated");
+                pos += n;
+                bb.flip();
+                sink.accept(bb);
+            }
+        } catch (IOException e) {
+            throw new SignatureException("cannot read buffered message", e);
+        }
+    }
+}
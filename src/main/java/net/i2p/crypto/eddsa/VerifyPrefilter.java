@@ -0,0 +1,107 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import net.i2p.crypto.eddsa.EdDSAMetrics.Rejection;
+
+/**
+ * Byte comparisons that turn away Ed25519 signatures which cannot be valid,
+ * or that only a malicious signer would produce, before any hashing or point
+ * arithmetic is spent on them:
+ * <ul>
+ * <li>S must be less than the group order L (RFC 8032 section 5.1.7);
+ * <li>R and A must be canonical, that is y &lt; p (RFC 8032 section 5.1.3);
+ * <li>R and A must not be points of small order, as libsodium also requires.
+ * </ul>
+ * {@link EdDSAPublicKey} re-encodes the point it decoded, so a key that reaches the
+ * engine is always canonical; A is checked anyway since it costs next to nothing.
+ * All inputs are public, but the comparisons still run in constant time.
+ */
+final class VerifyPrefilter {
+    /**
+     * The group order L = 2^252 + 27742317777372353535851937790883648493, little-endian.
+     */
+    private static final byte[] L_BYTES =
+            Utils.hexToBytes("edd3f55c1a631258d69cf7a2def9de1400000000000000000000000000000010");
+
+    /**
+     * The encodings of points of order 1, 2, 4 and 8, compared with the sign bit
+     * cleared, as in libsodium's blocklist: 0, 1, the two points of order 8, p-1,
+     * and the non-canonical p and p+1.
+     */
+    private static final byte[][] SMALL_ORDER = {
+        Utils.hexToBytes("0000000000000000000000000000000000000000000000000000000000000000"),
+        Utils.hexToBytes("0100000000000000000000000000000000000000000000000000000000000000"),
+        Utils.hexToBytes("26e8958fc2b227b045c3f489f2ef98f0d5dfac05d3c63339b13802886d53fc05"),
+        Utils.hexToBytes("c7176a703d4dd84fba3c0b760d10670f2a2053fa2c39ccc64ec7fd7792ac037a"),
+        Utils.hexToBytes("ecffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f"),
+        Utils.hexToBytes("edffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f"),
+        Utils.hexToBytes("eeffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f"),
+    };
+
+    private VerifyPrefilter() {}
+
+    /**
+     * @param sig the array holding the 64-byte signature R || S
+     * @param off the offset of the signature
+     * @param A the 32-byte public key
+     * @return why the signature must be rejected, or null if it has to be verified
+     */
+    static Rejection check(byte[] sig, int off, byte[] A) {
+        if (!isCanonicalScalar(sig, off + 32)) return Rejection.NON_CANONICAL_S;
+        if (!isCanonicalPoint(sig, off)) return Rejection.NON_CANONICAL_R;
+        if (!isCanonicalPoint(A, 0)) return Rejection.NON_CANONICAL_A;
+        if (hasSmallOrder(sig, off)) return Rejection.SMALL_ORDER_R;
+        if (hasSmallOrder(A, 0)) return Rejection.SMALL_ORDER_A;
+        return null;
+    }
+
+    /**
+     * Constant-time check that the little-endian scalar at s[off..off+32)
+     * is less than the group order L.
+     */
+    static boolean isCanonicalScalar(byte[] s, int off) {
+        int borrow = 0;
+        for (int i = 0; i < L_BYTES.length; i++) {
+            borrow = ((s[off + i] & 0xff) - (L_BYTES[i] & 0xff) - borrow) >>> 31;
+        }
+        return borrow == 1;
+    }
+
+    /**
+     * @return false if y, the encoding without its sign bit, is at least p = 2^255 - 19
+     */
+    static boolean isCanonicalPoint(byte[] e, int off) {
+        // y >= p only if bytes 1..30 are 0xff, byte 31 is 0x7f and byte 0 is at least 0xed
+        int all = (e[off + 31] & 0x7f) ^ 0x7f;
+        for (int i = 1; i < 31; i++) {
+            all |= (e[off + i] & 0xff) ^ 0xff;
+        }
+        int low = ((e[off] & 0xff) - 0xed) >>> 31;
+        return (all != 0) | (low == 1);
+    }
+
+    /**
+     * @return true if the encoding, without its sign bit, is on the blocklist
+     */
+    static boolean hasSmallOrder(byte[] e, int off) {
+        int found = 0;
+        for (byte[] bad : SMALL_ORDER) {
+            int diff = ((e[off + 31] & 0x7f) ^ bad[31]);
+            for (int i = 0; i < 31; i++) {
+                diff |= e[off + i] ^ bad[i];
+            }
+            found |= ((diff & 0xff) - 1) >>> 31;
+        }
+        return found != 0;
+    }
+}
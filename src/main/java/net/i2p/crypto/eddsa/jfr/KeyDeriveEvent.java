@@ -0,0 +1,29 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Public points derived from private keys, A = aB.
+ */
+@Name("net.i2p.crypto.eddsa.KeyDerive")
+@Label("EdDSA Key Derive")
+@Category("EdDSA")
+@Description("Public points derived from private keys, A = aB.")
+@Threshold("1 ms")
+public final class KeyDeriveEvent extends Event {}
@@ -0,0 +1,33 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Curve points decoded from their 32-byte encoding.
+ */
+@Name("net.i2p.crypto.eddsa.PointDecompression")
+@Label("EdDSA Point Decompression")
+@Category("EdDSA")
+@Description("Curve points decoded from their 32-byte encoding.")
+@Threshold("1 ms")
+public final class PointDecompressionEvent extends Event {
+    @Label("Precomputed")
+    @Description("Whether the tables for scalar multiplication were also computed")
+    public boolean precomputed;
+}
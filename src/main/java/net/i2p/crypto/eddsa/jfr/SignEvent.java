@@ -0,0 +1,41 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Signatures made by EdDSAEngine.
+ */
+@Name("net.i2p.crypto.eddsa.Sign")
+@Label("EdDSA Sign")
+@Category("EdDSA")
+@Description("Signatures made by EdDSAEngine.")
+@Threshold("1 ms")
+public final class SignEvent extends Event {
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Message Length")
+    @Description("Total length of the messages, or -1 if only their hash was kept")
+    @DataAmount
+    public long messageLength;
+
+    @Label("Signatures")
+    public int signatures;
+}
@@ -0,0 +1,34 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Tables of multiples of a point, computed for the base point and for public keys.
+ */
+@Name("net.i2p.crypto.eddsa.TablePrecomputation")
+@Label("EdDSA Table Precomputation")
+@Category("EdDSA")
+@Description("Tables of multiples of a point, computed for the base point and for public keys.")
+public final class TablePrecomputationEvent extends Event {
+    @Label("Table")
+    @Description("single for the base point table used when signing, double for the table used when verifying")
+    public String table;
+
+    @Label("Entries")
+    public int entries;
+}
@@ -0,0 +1,34 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Lookups in an Ed25519VerificationCache.
+ */
+@Name("net.i2p.crypto.eddsa.VerificationCache")
+@Label("EdDSA Verification Cache")
+@Category("EdDSA")
+@Description("Lookups in an Ed25519VerificationCache.")
+@Enabled(false)
+@StackTrace(false)
+public final class VerificationCacheEvent extends Event {
+    @Label("Hit")
+    public boolean hit;
+}
@@ -0,0 +1,45 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Signatures checked by EdDSAEngine.
+ */
+@Name("net.i2p.crypto.eddsa.Verify")
+@Label("EdDSA Verify")
+@Category("EdDSA")
+@Description("Signatures checked by EdDSAEngine.")
+@Threshold("1 ms")
+public final class VerifyEvent extends Event {
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Message Length")
+    @Description("Length of the message, or -1 if only its hash was kept")
+    @DataAmount
+    public long messageLength;
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Rejection")
+    @Description("Why the signature was turned away without verifying it, if it was")
+    public String rejection;
+}
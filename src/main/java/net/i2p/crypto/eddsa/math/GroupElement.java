@@ -14,6 +14,8 @@ package net.i2p.crypto.eddsa.math;
 import java.io.Serializable;
 import java.util.Arrays;
 import net.i2p.crypto.eddsa.Utils;
+import net.i2p.crypto.eddsa.jfr.PointDecompressionEvent;
+import net.i2p.crypto.eddsa.jfr.TablePrecomputationEvent;
 
 /**
  * A point $(x,y)$ on an EdDSA curve.
@@ -289,6 +291,8 @@ public class GroupElement implements Serializable {
      * @param precomputeSingleAndDouble If true, populate both precmp and dblPrecmp, else set both to null.
      */
     public GroupElement(final Curve curve, final byte[] s, boolean precomputeSingleAndDouble) {
+        PointDecompressionEvent event = new PointDecompressionEvent();
+        event.begin();
         FieldElement x, y, yy, u, v, v3, vxx, check;
         y = curve.getField().fromByteArray(s);
         yy = y.square();
@@ -337,6 +341,8 @@ public class GroupElement implements Serializable {
             precmp = null;
             dblPrecmp = null;
         }
+        event.precomputed = precomputeSingleAndDouble;
+        event.commit();
     }
 
     /**
@@ -417,6 +423,40 @@ public class GroupElement implements Serializable {
         }
     }
 
+    /**
+     * Converts several group elements to encoded points, as
+     * {@link #toByteArray()} does for each, but with a single field inversion
+     * shared between all of them (Montgomery's trick).
+     *
+     * @param points the group elements, each in P2 or P3 representation
+     * @return the encoded points, in the same order
+     */
+    public static byte[][] toByteArrays(final GroupElement[] points) {
+        final int n = points.length;
+        final byte[][] out = new byte[n][];
+        if (n == 0) return out;
+        // acc[i] = Z_0 * ... * Z_i
+        final FieldElement[] acc = new FieldElement[n];
+        acc[0] = points[0].Z;
+        for (int i = 1; i < n; i++) {
+            acc[i] = acc[i - 1].multiply(points[i].Z);
+        }
+        // inv = 1 / (Z_0 * ... * Z_i), walking back down
+        FieldElement inv = acc[n - 1].invert();
+        for (int i = n - 1; i >= 0; i--) {
+            final GroupElement p = points[i];
+            if (p.repr != Representation.P2 && p.repr != Representation.P3) throw new IllegalArgumentException();
+            final FieldElement recip = i == 0 ? inv : inv.multiply(acc[i - 1]);
+            if (i > 0) inv = inv.multiply(p.Z);
+            final FieldElement x = p.X.multiply(recip);
+            final FieldElement y = p.Y.multiply(recip);
+            final byte[] s = y.toByteArray();
+            s[s.length - 1] |= (x.isNegative() ? (byte) 0x80 : 0);
+            out[i] = s;
+        }
+        return out;
+    }
+
     /**
      * Converts the group element to the P2 representation.
      *
@@ -539,34 +579,53 @@ public class GroupElement implements Serializable {
 
     /**
      * Precomputes table for {@link #scalarMultiply(byte[])}.
+     * <p>
+     * The starting point $256^i * B$ of each row only takes doublings, so those are
+     * computed first and then each row is filled from its own starting point.
+     * This runs in the curve table's class initializer, so it stays on the calling
+     * thread rather than tying up a shared pool while other threads wait on the class.
      */
     private GroupElement[][] precomputeSingle() {
+        TablePrecomputationEvent event = new TablePrecomputationEvent();
+        event.begin();
         // Precomputation for single scalar multiplication.
-        GroupElement[][] precmp = new GroupElement[32][8];
+        final GroupElement[][] precmp = new GroupElement[32][8];
+        final GroupElement[] rows = new GroupElement[32];
         // TODO-CR BR: check that this == base point when the method is called.
         GroupElement Bi = this;
         for (int i = 0; i < 32; i++) {
-            GroupElement Bij = Bi;
-            for (int j = 0; j < 8; j++) {
-                final FieldElement recip = Bij.Z.invert();
-                final FieldElement x = Bij.X.multiply(recip);
-                final FieldElement y = Bij.Y.multiply(recip);
-                precmp[i][j] = precomp(
-                        this.curve, y.add(x), y.subtract(x), x.multiply(y).multiply(this.curve.get2D()));
-                Bij = Bij.add(Bi.toCached()).toP3();
-            }
+            rows[i] = Bi;
             // Only every second summand is precomputed (16^2 = 256)
             for (int k = 0; k < 8; k++) {
                 Bi = Bi.add(Bi.toCached()).toP3();
             }
         }
+        for (int i = 0; i < 32; i++) {
+            precomputeRow(rows[i], precmp[i]);
+        }
+        event.table = "single";
+        event.entries = 32 * 8;
+        event.commit();
         return precmp;
     }
 
+    private void precomputeRow(final GroupElement Bi, final GroupElement[] row) {
+        GroupElement Bij = Bi;
+        for (int j = 0; j < 8; j++) {
+            final FieldElement recip = Bij.Z.invert();
+            final FieldElement x = Bij.X.multiply(recip);
+            final FieldElement y = Bij.Y.multiply(recip);
+            row[j] = precomp(this.curve, y.add(x), y.subtract(x), x.multiply(y).multiply(this.curve.get2D()));
+            Bij = Bij.add(Bi.toCached()).toP3();
+        }
+    }
+
     /**
      * Precomputes table for {@link #doubleScalarMultiplyVariableTime(GroupElement, byte[], byte[])}.
      */
     private GroupElement[] precomputeDouble() {
+        TablePrecomputationEvent event = new TablePrecomputationEvent();
+        event.begin();
         // Precomputation for double scalar multiplication.
         // P,3P,5P,7P,9P,11P,13P,15P
         GroupElement[] dblPrecmp = new GroupElement[8];
@@ -580,6 +639,9 @@ public class GroupElement implements Serializable {
             // Bi = edwards(B,edwards(B,Bi))
             Bi = this.add(this.add(Bi.toCached()).toP3().toCached()).toP3();
         }
+        event.table = "double";
+        event.entries = dblPrecmp.length;
+        event.commit();
         return dblPrecmp;
     }
 
@@ -1056,6 +1118,81 @@ public class GroupElement implements Serializable {
         return r;
     }
 
+    /**
+     * $r = b * B + \sum_i a_i * P_i$ where $B$ is this point, sharing one run of
+     * doublings between all the points (Straus' method).
+     * <p>
+     * $B$ must have been previously precomputed. Points $P_i$ that have been
+     * precomputed use their table, for the others a table is built here.
+     *
+     * @param P the points, in P3 representation.
+     * @param a the scalar of each point, $a_i = a_i[0]+256*a_i[1]+\dots+256^{31} a_i[31]$
+     * @param b $= b[0]+256*b[1]+\dots+256^{31} b[31]$
+     * @return the GroupElement in P2 representation
+     */
+    public GroupElement multiScalarMultiplyVariableTime(final GroupElement[] P, final byte[][] a, final byte[] b) {
+        final byte[][] aslide = new byte[P.length][];
+        final GroupElement[][] tables = new GroupElement[P.length][];
+        for (int j = 0; j < P.length; j++) {
+            aslide[j] = slide(a[j]);
+            tables[j] = P[j].dblPrecmp != null ? P[j].dblPrecmp : P[j].precomputeDoubleCached();
+        }
+        final byte[] bslide = slide(b);
+
+        GroupElement r = this.curve.getZero(Representation.P2);
+
+        int i;
+        top:
+        for (i = 255; i >= 0; --i) {
+            if (bslide[i] != 0) break;
+            for (byte[] s : aslide) {
+                if (s[i] != 0) break top;
+            }
+        }
+
+        for (; i >= 0; --i) {
+            GroupElement t = r.dbl();
+
+            for (int j = 0; j < aslide.length; j++) {
+                if (aslide[j][i] != 0) t = t.toP3().addOddMultiple(tables[j], aslide[j][i]);
+            }
+            if (bslide[i] != 0) t = t.toP3().addOddMultiple(this.dblPrecmp, bslide[i]);
+
+            r = t.toP2();
+        }
+
+        return r;
+    }
+
+    /**
+     * Like {@link #precomputeDouble()}, but in CACHED representation, which
+     * needs no field inversions.
+     *
+     * @return P,3P,5P,...,15P
+     */
+    private GroupElement[] precomputeDoubleCached() {
+        GroupElement[] table = new GroupElement[8];
+        GroupElement twice = this.dbl().toP3().toCached();
+        GroupElement Pi = this;
+        table[0] = this.toCached();
+        for (int i = 1; i < 8; i++) {
+            Pi = Pi.add(twice).toP3();
+            table[i] = Pi.toCached();
+        }
+        return table;
+    }
+
+    /**
+     * @param table the odd multiples P,3P,...,15P, in PRECOMP or CACHED representation
+     * @param d an odd digit of {@link #slide(byte[])}
+     * @return this + d * P in P1P1 representation
+     */
+    private GroupElement addOddMultiple(final GroupElement[] table, final int d) {
+        GroupElement q = table[(d > 0 ? d : -d) / 2];
+        if (q.repr == Representation.PRECOMP) return d > 0 ? madd(q) : msub(q);
+        return d > 0 ? add(q) : sub(q);
+    }
+
     /**
      * Verify that a point is on its curve.
      * @return true if the point lies on its curve.
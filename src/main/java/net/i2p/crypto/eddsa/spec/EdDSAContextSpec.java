@@ -0,0 +1,39 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.spec;
+
+import java.security.spec.AlgorithmParameterSpec;
+
+/**
+ * The context string for the Ed25519ctx and Ed25519ph signature algorithms,
+ * as defined in RFC 8032. Pass it to setParameter() after initSign() or
+ * initVerify() but before the first update().
+ */
+public class EdDSAContextSpec implements AlgorithmParameterSpec {
+    private final byte[] context;
+
+    /**
+     * @param context the context, at most 255 bytes
+     * @throws IllegalArgumentException if the context is too long
+     */
+    public EdDSAContextSpec(byte[] context) {
+        if (context.length > 255) throw new IllegalArgumentException("context is too long");
+        this.context = context.clone();
+    }
+
+    /**
+     * @return a copy of the context
+     */
+    public byte[] getContext() {
+        return context.clone();
+    }
+}
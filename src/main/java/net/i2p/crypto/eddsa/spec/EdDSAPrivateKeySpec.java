@@ -15,6 +15,8 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.KeySpec;
 import java.util.Arrays;
+import net.i2p.crypto.eddsa.EdDSAMetrics;
+import net.i2p.crypto.eddsa.jfr.KeyDeriveEvent;
 import net.i2p.crypto.eddsa.math.GroupElement;
 
 /**
@@ -25,7 +27,9 @@ public class EdDSAPrivateKeySpec implements KeySpec {
     private final byte[] seed;
     private final byte[] h;
     private final byte[] a;
-    private final GroupElement A;
+    private GroupElement A;
+    // A was passed in rather than derived from a
+    private final boolean providedA;
     private final EdDSAParameterSpec spec;
 
     /**
@@ -39,6 +43,7 @@ public class EdDSAPrivateKeySpec implements KeySpec {
 
         this.spec = spec;
         this.seed = seed;
+        this.providedA = false;
 
         try {
             MessageDigest hash = MessageDigest.getInstance(spec.getHashAlgorithm());
@@ -57,8 +62,7 @@ public class EdDSAPrivateKeySpec implements KeySpec {
             h[(b / 8) - 1] &= 63;
             h[(b / 8) - 1] |= 64;
             a = Arrays.copyOfRange(h, 0, b / 8);
-
-            A = spec.getB().scalarMultiply(a);
+            // A is only derived when first needed, see getA()
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalArgumentException("Unsupported hash algorithm");
         }
@@ -80,21 +84,33 @@ public class EdDSAPrivateKeySpec implements KeySpec {
         this.seed = null;
         this.h = h;
         this.spec = spec;
+        this.providedA = false;
         int b = spec.getCurve().getField().getb();
 
         h[0] &= 248;
         h[(b / 8) - 1] &= 63;
         h[(b / 8) - 1] |= 64;
         a = Arrays.copyOfRange(h, 0, b / 8);
-
-        A = spec.getB().scalarMultiply(a);
     }
 
+    /**
+     *  Initialize from all the parts of a key, for instance as read from a key
+     *  file that stores the public key next to the private one. Nothing checks
+     *  here that A really is aB; {@link net.i2p.crypto.eddsa.EdDSAEngine} does
+     *  before it first signs with the key.
+     *
+     *  @param seed the private key, or null
+     *  @param h the hash of the seed
+     *  @param a the private scalar
+     *  @param A the public key, or null to derive it from a when needed
+     *  @param spec the parameter specification for this key
+     */
     public EdDSAPrivateKeySpec(byte[] seed, byte[] h, byte[] a, GroupElement A, EdDSAParameterSpec spec) {
         this.seed = seed;
         this.h = h;
         this.a = a;
         this.A = A;
+        this.providedA = A != null;
         this.spec = spec;
     }
 
@@ -120,10 +136,33 @@ public class EdDSAPrivateKeySpec implements KeySpec {
     }
 
     /**
+     *  The public key is derived from the private key on first use, so that
+     *  keys which are only stored or re-encoded never need it.
+     *
      *  @return the public key
      */
     public GroupElement getA() {
-        return A;
+        // Only read A once, as in EdDSAPublicKeySpec.getNegativeA(). Requires
+        // all GroupElement's fields to be final.
+        GroupElement ourA = A;
+        if (ourA == null) {
+            KeyDeriveEvent event = new KeyDeriveEvent();
+            event.begin();
+            long start = System.nanoTime();
+            ourA = spec.getB().scalarMultiply(a);
+            EdDSAMetrics.keyDerive().record(System.nanoTime() - start);
+            event.commit();
+            A = ourA;
+        }
+        return ourA;
+    }
+
+    /**
+     *  @return true if the public key was passed to the constructor rather
+     *  than derived from the private key, so it may not belong to it
+     */
+    public boolean isAProvided() {
+        return providedA;
     }
 
     public EdDSAParameterSpec getParams() {
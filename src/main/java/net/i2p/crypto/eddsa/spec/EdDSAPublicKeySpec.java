@@ -12,6 +12,8 @@
 package net.i2p.crypto.eddsa.spec;
 
 import java.security.spec.KeySpec;
+import net.i2p.crypto.eddsa.EdDSAMetrics;
+import net.i2p.crypto.eddsa.jfr.KeyDecodeEvent;
 import net.i2p.crypto.eddsa.math.GroupElement;
 
 /**
@@ -32,7 +34,12 @@ public class EdDSAPublicKeySpec implements KeySpec {
         if (pk.length != spec.getCurve().getField().getb() / 8)
             throw new IllegalArgumentException("public-key length is wrong");
 
+        KeyDecodeEvent event = new KeyDecodeEvent();
+        event.begin();
+        long start = System.nanoTime();
         this.A = new GroupElement(spec.getCurve(), pk);
+        EdDSAMetrics.keyDecode().record(System.nanoTime() - start);
+        event.commit();
         this.spec = spec;
     }
 
@@ -0,0 +1,14 @@
+package io.jenkins.plugins.eddsa_api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+
+import org.junit.Test;
+
+public class CryptoWarmupTest {
+
+    @Test
+    public void testWarmUpSignsAndVerifies() throws Exception {
+        assertThat(CryptoWarmup.warmUp(10), greaterThan(0L));
+    }
+}
@@ -0,0 +1,40 @@
+package io.jenkins.plugins.eddsa_api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+
+import hudson.ExtensionList;
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class EdDSAMetricsJmxTest {
+
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void metricsAreExposed() throws Exception {
+        EdDSAEngine engine = new EdDSAEngine();
+        engine.initSign(new EdDSAPrivateKey(
+                new EdDSAPrivateKeySpec(new byte[32], EdDSANamedCurveTable.ED_25519_CURVE_SPEC)));
+        engine.signOneShot(new byte[] {1, 2, 3});
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(EdDSAMetricsJmx.OBJECT_NAME);
+        assertThat(server.isRegistered(name), is(true));
+        assertThat((Long) server.getAttribute(name, "SignCount"), is(greaterThanOrEqualTo(1L)));
+
+        EdDSAMetricProvider provider = ExtensionList.lookupSingleton(EdDSAMetricProvider.class);
+        assertThat(provider.getMetricSet().getMetrics(), hasKey("eddsa-api.sign.count"));
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Bytes allocated per operation on the hot paths, after warm-up. The budgets are
+ * the amounts measured when they were recorded plus about 15%; lower them when an
+ * allocation is removed so that it does not creep back in.
+ */
+public class AllocationBudgetTest {
+    // measured: 277 KB, 396 KB, 255 KB, 44 KB and 277 KB
+    static final long SIGN_BUDGET = 320_000;
+    static final long VERIFY_BUDGET = 460_000;
+    static final long SCALAR_MULTIPLY_BUDGET = 295_000;
+    static final long PUBLIC_KEY_BUDGET = 51_000;
+    static final long PRIVATE_KEY_BUDGET = 320_000;
+
+    static final int WARMUP = 2000;
+    static final int ROUNDS = 5;
+    static final int OPS_PER_ROUND = 100;
+
+    static final EdDSANamedCurveSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+    static final byte[] seed = Utils.hexToBytes("9d61b19deffd5a60ba844af492ec2cc44449c5697b326919703bac031cae7f60");
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    private interface Op {
+        void run() throws Exception;
+    }
+
+    @BeforeClass
+    public static void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * @return the fewest bytes allocated per call over several rounds, so that a
+     *         round disturbed by JIT compilation does not count
+     */
+    private static long allocatedPerOp(Op op) throws Exception {
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            op.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < ROUNDS; r++) {
+            long before = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < OPS_PER_ROUND; i++) {
+                op.run();
+            }
+            best = Math.min(best, (threads.getThreadAllocatedBytes(id) - before) / OPS_PER_ROUND);
+        }
+        return best;
+    }
+
+    @Test
+    public void testSignOneShot() throws Exception {
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec)));
+        byte[] message = new byte[64];
+        assertThat(allocatedPerOp(() -> sgr.signOneShot(message)), lessThanOrEqualTo(SIGN_BUDGET));
+    }
+
+    @Test
+    public void testVerifyOneShot() throws Exception {
+        EdDSAPrivateKey privKey = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initSign(privKey);
+        byte[] message = new byte[64];
+        byte[] signature = sgr.signOneShot(message);
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(privKey.getAbyte(), spec)));
+        assertThat(
+                allocatedPerOp(() -> assertTrue(sgr.verifyOneShot(message, signature))),
+                lessThanOrEqualTo(VERIFY_BUDGET));
+    }
+
+    @Test
+    public void testScalarMultiply() throws Exception {
+        byte[] a = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec)).geta();
+        assertThat(allocatedPerOp(() -> spec.getB().scalarMultiply(a)), lessThanOrEqualTo(SCALAR_MULTIPLY_BUDGET));
+    }
+
+    @Test
+    public void testPublicKeyConstruction() throws Exception {
+        byte[] pk = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec)).getAbyte();
+        assertThat(
+                allocatedPerOp(() -> new EdDSAPublicKey(new EdDSAPublicKeySpec(pk, spec))),
+                lessThanOrEqualTo(PUBLIC_KEY_BUDGET));
+    }
+
+    @Test
+    public void testPrivateKeyConstruction() throws Exception {
+        assertThat(
+                allocatedPerOp(() -> new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec)).getAbyte()),
+                lessThanOrEqualTo(PRIVATE_KEY_BUDGET));
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.MessageDigestSpi;
+import java.security.Provider;
+import java.security.Security;
+import org.junit.After;
+import org.junit.Test;
+
+public class DigestsTest {
+    private static final Provider TEST_PROVIDER = new TestProvider();
+
+    @After
+    public void tearDown() {
+        Security.removeProvider(TEST_PROVIDER.getName());
+        Digests.clear();
+    }
+
+    @Test
+    public void testProviderOrderIsFollowed() throws Exception {
+        Digests.clear();
+        assertThat(Digests.newDigest("SHA-256").getProvider(), is(MessageDigest.getInstance("SHA-256").getProvider()));
+
+        // Registered later but preferred: seen without selecting again
+        Security.insertProviderAt(TEST_PROVIDER, 1);
+        assertThat(Digests.newDigest("SHA-256").getProvider(), is(sameInstance(TEST_PROVIDER)));
+
+        Digests.select();
+        MessageDigest md = Digests.newDigest("SHA-256");
+        assertThat(md.getProvider(), is(sameInstance(TEST_PROVIDER)));
+        assertThat(md.digest(new byte[3]), is(equalTo(MessageDigest.getInstance("SHA-256", "SUN").digest(new byte[3]))));
+
+        // The selection sticks until it is made again
+        Security.removeProvider(TEST_PROVIDER.getName());
+        assertThat(Digests.newDigest("SHA-256").getProvider(), is(sameInstance(TEST_PROVIDER)));
+        Digests.select();
+        assertThat(Digests.newDigest("SHA-256").getProvider(), is(MessageDigest.getInstance("SHA-256").getProvider()));
+    }
+
+    private static final class TestProvider extends Provider {
+        private static final long serialVersionUID = 1L;
+
+        TestProvider() {
+            super("EdDSATestDigest", "1.0", "SHA-256 backed by SUN");
+            put("MessageDigest.SHA-256", TestSha256.class.getName());
+        }
+    }
+
+    public static final class TestSha256 extends MessageDigestSpi implements Cloneable {
+        private MessageDigest md;
+
+        public TestSha256() throws GeneralSecurityException {
+            md = MessageDigest.getInstance("SHA-256", "SUN");
+        }
+
+        @Override
+        protected void engineUpdate(byte input) {
+            md.update(input);
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            md.update(input, offset, len);
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            return md.digest();
+        }
+
+        @Override
+        protected void engineReset() {
+            md.reset();
+        }
+
+        @Override
+        public Object clone() throws CloneNotSupportedException {
+            TestSha256 copy = (TestSha256) super.clone();
+            copy.md = (MessageDigest) md.clone();
+            return copy;
+        }
+    }
+}
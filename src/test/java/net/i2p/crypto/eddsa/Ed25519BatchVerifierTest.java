@@ -0,0 +1,221 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.security.MessageDigest;
+import java.security.SignatureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class Ed25519BatchVerifierTest {
+
+    @Test
+    public void testVerifyTestVectors() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        List<CompletableFuture<Boolean>> valid = new ArrayList<CompletableFuture<Boolean>>();
+        List<CompletableFuture<Boolean>> invalid = new ArrayList<CompletableFuture<Boolean>>();
+        try (Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(2, 8, 1, TimeUnit.MILLISECONDS)) {
+            for (Ed25519TestVectors.TestTuple testCase : Ed25519TestVectors.testCases) {
+                EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(testCase.pk, spec));
+                valid.add(verifier.verify(key, testCase.message, testCase.sig));
+                byte[] wrong = testCase.message.clone();
+                if (wrong.length > 0) wrong[0] ^= 1;
+                else wrong = new byte[] {0};
+                invalid.add(verifier.verify(key, wrong, testCase.sig));
+            }
+            for (int i = 0; i < valid.size(); i++) {
+                assertThat("Test case " + i + " failed", valid.get(i).get(), is(true));
+                assertThat("Test case " + i + " failed", invalid.get(i).get(), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void testCombinedCheckFindsBadSignatures() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Random random = new Random(32);
+        EdDSAEngine engine = new EdDSAEngine();
+        EdDSAPrivateKey[] privs = new EdDSAPrivateKey[3];
+        EdDSAPublicKey[] pubs = new EdDSAPublicKey[privs.length];
+        for (int i = 0; i < privs.length; i++) {
+            byte[] seed = new byte[32];
+            random.nextBytes(seed);
+            privs[i] = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+            pubs[i] = new EdDSAPublicKey(new EdDSAPublicKeySpec(privs[i].getA(), spec));
+        }
+        final int n = 12;
+        byte[][] messages = new byte[n][];
+        byte[][] sigs = new byte[n][];
+        for (int i = 0; i < n; i++) {
+            messages[i] = new byte[random.nextInt(200)];
+            random.nextBytes(messages[i]);
+            engine.initSign(privs[i % privs.length]);
+            sigs[i] = engine.signOneShot(messages[i]);
+        }
+
+        // one worker and a long window, so that each round is verified as one batch
+        try (Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(1, n, 10, TimeUnit.SECONDS)) {
+            List<CompletableFuture<Boolean>> results = new ArrayList<CompletableFuture<Boolean>>();
+            for (int i = 0; i < n; i++) results.add(verifier.verify(pubs[i % pubs.length], messages[i], sigs[i]));
+            for (int i = 0; i < n; i++) assertThat("signature " + i + " rejected", results.get(i).get(), is(true));
+
+            byte[] badS = sigs[3].clone();
+            badS[32] ^= 1;
+            byte[] wrongKey = sigs[5];
+            byte[] wrongMessage = messages[7].clone();
+            wrongMessage = Arrays.copyOf(wrongMessage, wrongMessage.length + 1);
+            results.clear();
+            for (int i = 0; i < n; i++) {
+                EdDSAPublicKey key = pubs[i % pubs.length];
+                if (i == 3) results.add(verifier.verify(key, messages[i], badS));
+                else if (i == 5) results.add(verifier.verify(pubs[0], messages[i], wrongKey));
+                else if (i == 7) results.add(verifier.verify(key, wrongMessage, sigs[i]));
+                else results.add(verifier.verify(key, messages[i], sigs[i]));
+            }
+            for (int i = 0; i < n; i++) {
+                assertThat("signature " + i + " misjudged", results.get(i).get(), is(i != 3 && i != 5 && i != 7));
+            }
+        }
+    }
+
+    /**
+     * A signature whose R has a small-order component only satisfies the
+     * cofactored equation, so the engine rejects it but the verifier accepts
+     * it, whatever else is in its batch.
+     */
+    @Test
+    public void testCofactoredWhateverTheBatch() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, spec));
+        EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec));
+        byte[] msg = EdDSAEngineTest.TEST_MSG;
+
+        // R' = rB + T for a point T of order 8, S = r + H(R',A,M)a
+        byte[] r = spec.getScalarOps().reduce(new byte[64]);
+        r[0] = 42;
+        GroupElement T = new GroupElement(
+                spec.getCurve(),
+                Utils.hexToBytes("26e8958fc2b227b045c3f489f2ef98f0d5dfac05d3c63339b13802886d53fc05"));
+        byte[] R = spec.getB().scalarMultiply(r).add(T.toCached()).toP2().toByteArray();
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        md.update(R);
+        md.update(pub.getAbyte());
+        byte[] h = spec.getScalarOps().reduce(md.digest(msg));
+        byte[] sig = Arrays.copyOf(R, 64);
+        System.arraycopy(spec.getScalarOps().multiplyAndAdd(h, priv.geta(), r), 0, sig, 32, 32);
+
+        EdDSAEngine engine = new EdDSAEngine();
+        engine.initVerify(pub);
+        assertThat(engine.verifyOneShot(msg, sig), is(false));
+        try (Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(1, 1, 0, TimeUnit.SECONDS)) {
+            assertThat("alone", verifier.verify(pub, msg, sig).get(), is(true));
+        }
+        try (Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(1, 2, 10, TimeUnit.SECONDS)) {
+            CompletableFuture<Boolean> mixed = verifier.verify(pub, msg, sig);
+            CompletableFuture<Boolean> plain = verifier.verify(pub, msg, EdDSAEngineTest.TEST_MSG_SIG);
+            assertThat("with a valid signature", mixed.get(), is(true));
+            assertThat(plain.get(), is(true));
+
+            byte[] bad = EdDSAEngineTest.TEST_MSG_SIG.clone();
+            bad[40] ^= 1;
+            long verified = EdDSAMetrics.verify().getCount();
+            mixed = verifier.verify(pub, msg, sig);
+            CompletableFuture<Boolean> invalid = verifier.verify(pub, msg, bad);
+            assertThat("with an invalid signature", mixed.get(), is(true));
+            assertThat(invalid.get(), is(false));
+            // The failed combined attempt is timed along with the checks that followed it
+            assertThat(EdDSAMetrics.verify().getCount() - verified, is(2L));
+        }
+    }
+
+    @Test
+    public void testBadSignatureLengthCompletesExceptionally() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec));
+        try (Ed25519BatchVerifier verifier = new Ed25519BatchVerifier()) {
+            CompletableFuture<Boolean> bad = verifier.verify(key, EdDSAEngineTest.TEST_MSG, new byte[63]);
+            CompletableFuture<Boolean> good =
+                    verifier.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG);
+            try {
+                bad.get();
+                fail("short signature accepted");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(SignatureException.class)));
+            }
+            assertThat(good.get(), is(true));
+        }
+    }
+
+    @Test
+    public void testManyConcurrentCallers() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        final EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec));
+        try (final Ed25519BatchVerifier verifier = new Ed25519BatchVerifier(4, 16, 50, TimeUnit.MICROSECONDS)) {
+            final List<CompletableFuture<Boolean>> results = new ArrayList<CompletableFuture<Boolean>>();
+            List<Thread> callers = new ArrayList<Thread>();
+            for (int i = 0; i < 16; i++) {
+                Thread t = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < 8; j++) {
+                            CompletableFuture<Boolean> f =
+                                    verifier.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG);
+                            synchronized (results) {
+                                results.add(f);
+                            }
+                        }
+                    }
+                });
+                callers.add(t);
+                t.start();
+            }
+            for (Thread t : callers) t.join();
+            assertThat(results.size(), is(128));
+            for (CompletableFuture<Boolean> f : results) {
+                assertThat(f.get(10, TimeUnit.SECONDS), is(true));
+            }
+        }
+    }
+
+    @Test
+    public void testClosedVerifierRejectsRequests() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec));
+        Ed25519BatchVerifier verifier = new Ed25519BatchVerifier();
+        CompletableFuture<Boolean> before =
+                verifier.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG);
+        verifier.close();
+        assertThat("accepted request dropped on close", before.get(10, TimeUnit.SECONDS), is(true));
+        try {
+            verifier.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG);
+            fail("closed verifier accepted a request");
+        } catch (RejectedExecutionException expected) {
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import org.junit.Test;
+
+public class Ed25519PublicKeyStoreTest {
+
+    private static EdDSAPublicKey readTestKey() throws Exception {
+        try (InputStream in = Ed25519PublicKeyStoreTest.class.getResourceAsStream(
+                OpenSSHKeysTest.SSH_DIR + "ed25519key.pub")) {
+            return OpenSSHKeys.parsePublicKey(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testFingerprintMatchesOpenSSH() throws Exception {
+        EdDSAPublicKey key = readTestKey();
+        assertThat(
+                Ed25519PublicKeyStore.toString(Ed25519PublicKeyStore.fingerprint(key.getAbyte())),
+                is("SHA256:l/ydygL00ObZER3CLnhaDg4UkYlcMfnXpBTuAcrM1r4"));
+
+        Ed25519PublicKeyStore store = new Ed25519PublicKeyStore();
+        store.add(key);
+        assertThat(store.getByFingerprint("SHA256:l/ydygL00ObZER3CLnhaDg4UkYlcMfnXpBTuAcrM1r4"), is(equalTo(key)));
+        assertThat(store.getByFingerprint("SHA256:AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA"), is(nullValue()));
+        assertThat(store.getByFingerprint("MD5:12:34"), is(nullValue()));
+    }
+
+    @Test
+    public void testAddDeduplicatesAndGrows() throws Exception {
+        checkAddAndLookup(new Ed25519PublicKeyStore());
+    }
+
+    @Test
+    public void testOffHeap() throws Exception {
+        Ed25519PublicKeyStore store = new Ed25519PublicKeyStore(0, true);
+        assertThat(store.isOffHeap(), is(true));
+        checkAddAndLookup(store);
+    }
+
+    private static void checkAddAndLookup(Ed25519PublicKeyStore store) throws Exception {
+        KeyPair[] pairs = new KeyPairGenerator().generateKeyPairs(100);
+        for (int i = 0; i < pairs.length; i++) {
+            assertThat(store.add((EdDSAPublicKey) pairs[i].getPublic()), is(i));
+        }
+        // Adding again returns the first position
+        assertThat(store.add(((EdDSAPublicKey) pairs[42].getPublic()).getAbyte()), is(42));
+        assertThat(store.size(), is(pairs.length));
+
+        for (int i = 0; i < pairs.length; i++) {
+            EdDSAPublicKey key = (EdDSAPublicKey) pairs[i].getPublic();
+            assertThat(store.contains(key), is(true));
+            assertThat(store.indexOf(Ed25519PublicKeyStore.fingerprint(key.getAbyte())), is(i));
+            assertThat(store.getEncoded(i), is(equalTo(key.getAbyte())));
+            assertThat(store.get(i), is(equalTo(key)));
+        }
+        assertThat(
+                store.contains((EdDSAPublicKey) new KeyPairGenerator().generateKeyPair().getPublic()), is(false));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfRange() {
+        new Ed25519PublicKeyStore().get(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWrongLength() {
+        new Ed25519PublicKeyStore().add(new byte[31]);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class Ed25519SignerTest {
+
+    @Test
+    public void testSignAndVerifyTestVectors() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        for (Ed25519TestVectors.TestTuple testCase : Ed25519TestVectors.testCases) {
+            Ed25519Signer signer =
+                    new Ed25519Signer(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(testCase.seed, spec)));
+            Ed25519Verifier verifier =
+                    new Ed25519Verifier(new EdDSAPublicKey(new EdDSAPublicKeySpec(testCase.pk, spec)));
+
+            assertThat(
+                    "Test case " + testCase.caseNum + " failed",
+                    signer.sign(testCase.message),
+                    is(equalTo(testCase.sig)));
+            assertThat(
+                    "Test case " + testCase.caseNum + " failed",
+                    verifier.verify(testCase.message, testCase.sig),
+                    is(true));
+        }
+    }
+
+    @Test
+    public void testBatchSignMatchesSingleSignatures() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Ed25519Signer signer =
+                new Ed25519Signer(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, spec)));
+
+        // Enough messages to be split between workers
+        byte[][] messages = new byte[100][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = Arrays.copyOf(EdDSAEngineTest.TEST_MSG, i % EdDSAEngineTest.TEST_MSG.length);
+        }
+        byte[][] sigs = signer.sign(messages, new ForkJoinPool(3));
+        assertThat(sigs.length, is(messages.length));
+        for (int i = 0; i < messages.length; i++) {
+            assertThat("message " + i + " signed wrongly", sigs[i], is(equalTo(signer.sign(messages[i]))));
+        }
+
+        byte[][] few = {EdDSAEngineTest.TEST_MSG, new byte[0]};
+        byte[][] fewSigs = signer.sign(few);
+        assertThat(fewSigs[0], is(equalTo(EdDSAEngineTest.TEST_MSG_SIG)));
+        assertThat(fewSigs[1], is(equalTo(signer.sign(new byte[0]))));
+    }
+
+    @Test
+    public void testSharedBetweenThreads() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        final Ed25519Signer signer =
+                new Ed25519Signer(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, spec)));
+        final Ed25519Verifier verifier =
+                new Ed25519Verifier(new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec)));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 32; i++) {
+                results.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        byte[] sig = signer.sign(EdDSAEngineTest.TEST_MSG);
+                        return sig.length == 64
+                                && verifier.verify(EdDSAEngineTest.TEST_MSG, sig)
+                                && verifier.verify(EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG)
+                                && !verifier.verify(new byte[] {0}, sig);
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
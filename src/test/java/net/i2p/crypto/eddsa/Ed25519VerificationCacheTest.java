@@ -0,0 +1,70 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class Ed25519VerificationCacheTest {
+    static final EdDSAParameterSpec ed25519 = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+
+    @Test
+    public void testRepeatedVerificationHitsCache() throws Exception {
+        Ed25519VerificationCache cache = new Ed25519VerificationCache(16, 1, TimeUnit.HOURS);
+        EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, ed25519));
+
+        assertThat(cache.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG), is(true));
+        assertThat(cache.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG), is(true));
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(1L));
+
+        // Failures are never remembered
+        byte[] wrong = EdDSAEngineTest.TEST_MSG.clone();
+        wrong[0] ^= 1;
+        assertThat(cache.verify(key, wrong, EdDSAEngineTest.TEST_MSG_SIG), is(false));
+        assertThat(cache.verify(key, wrong, EdDSAEngineTest.TEST_MSG_SIG), is(false));
+        assertThat(cache.getMissCount(), is(3L));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testTestVectorsAndSizeLimit() throws Exception {
+        Ed25519VerificationCache cache = new Ed25519VerificationCache(4, 1, TimeUnit.HOURS);
+        for (Ed25519TestVectors.TestTuple testCase : Ed25519TestVectors.testCases) {
+            EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(testCase.pk, ed25519));
+            assertThat(
+                    "Test case " + testCase.caseNum + " failed",
+                    cache.verify(key, testCase.message, testCase.sig),
+                    is(true));
+            assertThat(cache.size() <= 4, is(true));
+        }
+        assertThat(cache.getEvictionCount(), is((long) Ed25519TestVectors.testCases.size() - 4));
+    }
+
+    @Test
+    public void testEntriesExpire() throws Exception {
+        Ed25519VerificationCache cache = new Ed25519VerificationCache(16, 1, TimeUnit.MILLISECONDS);
+        EdDSAPublicKey key = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, ed25519));
+
+        assertThat(cache.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG), is(true));
+        Thread.sleep(5);
+        assertThat(cache.verify(key, EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG), is(true));
+        assertThat(cache.getHitCount(), is(0L));
+        assertThat(cache.getMissCount(), is(2L));
+    }
+}
@@ -13,15 +13,30 @@ package net.i2p.crypto.eddsa;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.KeyFactory;
 import java.security.MessageDigest;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
+import java.security.spec.EdECPrivateKeySpec;
+import java.security.spec.NamedParameterSpec;
+import java.util.Arrays;
+import java.util.Random;
+import net.i2p.crypto.eddsa.spec.EdDSAContextSpec;
 import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
 import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
 import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
@@ -29,6 +44,7 @@ import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 // import sun.security.util.DerValue;
 // import sun.security.x509.X509Key;
 
@@ -44,9 +60,31 @@ public class EdDSAEngineTest {
     static final byte[] TEST_MSG_SIG = Utils.hexToBytes(
             "94825896c7075c31bcb81f06dba2bdcd9dcf16e79288d4b9f87c248215c8468d475f429f3de3b4a2cf67fe17077ae19686020364d6d4fa7a0174bab4a123ba0f");
 
+    // RFC 8032 section 7.3
+    static final byte[] TEST_PH_SEED =
+            Utils.hexToBytes("833fe62409237b9d62ec77587520911e9a759cec1d19755b7da901b96dca3d42");
+    static final byte[] TEST_PH_PK =
+            Utils.hexToBytes("ec172b93ad5e563bf4932c70e1245034c35467ef2efd4d64ebf819683467e2bf");
+    static final byte[] TEST_PH_MSG = Utils.hexToBytes("616263");
+    static final byte[] TEST_PH_SIG = Utils.hexToBytes(
+            "98a70222f0b8121aa9d30f813d683f809e462b469c7ff87639499bb94e6dae4131f85042463c2a355a2003d062adf5aaa10b8c61e636062aaad11c2a26083406");
+
+    // RFC 8032 section 7.2, context "foo"
+    static final byte[] TEST_CTX_SEED =
+            Utils.hexToBytes("0305334e381af78f141cb666f6199f57bc3495335a256a95bd2a55bf546663f6");
+    static final byte[] TEST_CTX_PK =
+            Utils.hexToBytes("dfc9425e4f968f7f0c29f0259cf5f9aed6851c2bb4ad8bfb860cfee0ab248292");
+    static final byte[] TEST_CTX_MSG = Utils.hexToBytes("f726936d19c800494e3fdaff20b276a8");
+    static final byte[] TEST_CTX_CONTEXT = Utils.hexToBytes("666f6f");
+    static final byte[] TEST_CTX_SIG = Utils.hexToBytes(
+            "55a4cc2f70a54e04288c5f4cd1e45a7bb520b36292911876cada7323198dd87a8b36950b95130022907a7fb7c4e9b2d5f6cca685a587b4b21f4b888e4e7edb0d");
+
     @Rule
     public ExpectedException exception = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void testSign() throws Exception {
         EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
@@ -193,6 +231,20 @@ public class EdDSAEngineTest {
         sgr.update(TEST_MSG);
     }
 
+    @Test
+    public void testEd25519phOneShotModeSingleByteUpdate() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Signature sgr = EdDSAEngine.ed25519ph();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_PH_SEED, spec)));
+        sgr.setParameter(EdDSAEngine.ONE_SHOT_MODE);
+
+        sgr.update(TEST_PH_MSG);
+
+        exception.expect(SignatureException.class);
+        exception.expectMessage("unsupported in one-shot mode");
+        sgr.update((byte) 0);
+    }
+
     @Test
     public void testSignOneShot() throws Exception {
         EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
@@ -215,6 +267,348 @@ public class EdDSAEngineTest {
         assertThat("verifyOneShot() failed", sgr.verifyOneShot(TEST_MSG, TEST_MSG_SIG), is(true));
     }
 
+    @Test
+    public void testSignByteBuffers() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(TEST_MSG.length);
+        direct.put(TEST_MSG).flip();
+        sgr.update(direct);
+        assertThat("direct buffer not consumed", direct.hasRemaining(), is(false));
+        assertThat("sign() of direct buffer failed", sgr.sign(), is(equalTo(TEST_MSG_SIG)));
+
+        ByteBuffer heap = ByteBuffer.wrap(TEST_MSG, 0, 7);
+        sgr.update(heap);
+        sgr.update(ByteBuffer.wrap(TEST_MSG, 7, TEST_MSG.length - 7).slice());
+        assertThat("sign() of heap buffers failed", sgr.sign(), is(equalTo(TEST_MSG_SIG)));
+
+        assertThat(
+                "signOneShot(ByteBuffer) failed",
+                sgr.signOneShot(ByteBuffer.wrap(TEST_MSG)),
+                is(equalTo(TEST_MSG_SIG)));
+    }
+
+    @Test
+    public void testSignOneShotScatteredIntoCallerBuffer() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+
+        ByteBuffer head = ByteBuffer.allocateDirect(5);
+        head.put(TEST_MSG, 0, 5).flip();
+        ByteBuffer tail = ByteBuffer.wrap(TEST_MSG, 5, TEST_MSG.length - 5);
+        byte[] out = new byte[3 + 64];
+        int len = sgr.signOneShot(new ByteBuffer[] {head, tail}, out, 3, 64);
+
+        assertThat(len, is(64));
+        assertThat(Arrays.copyOfRange(out, 3, 67), is(equalTo(TEST_MSG_SIG)));
+        assertThat("buffers not consumed", head.hasRemaining() || tail.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void testSignIntoShortBuffer() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Signature sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+        sgr.update(TEST_MSG);
+
+        exception.expect(SignatureException.class);
+        exception.expectMessage("partial signatures not returned");
+        sgr.sign(new byte[64], 1, 63);
+    }
+
+    @Test
+    public void testVerifyByteBuffers() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec)));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(TEST_MSG.length);
+        direct.put(TEST_MSG).flip();
+        sgr.update(direct);
+        assertThat("verify() of direct buffer failed", sgr.verify(TEST_MSG_SIG), is(true));
+
+        ByteBuffer[] scattered = {
+            ByteBuffer.wrap(TEST_MSG, 0, 10), ByteBuffer.wrap(TEST_MSG, 10, TEST_MSG.length - 10)
+        };
+        byte[] sig = new byte[70];
+        System.arraycopy(TEST_MSG_SIG, 0, sig, 6, 64);
+        assertThat("verifyOneShot(ByteBuffer[]) failed", sgr.verifyOneShot(scattered, sig, 6, 64), is(true));
+        assertThat(
+                "verifyOneShot(ByteBuffer) failed",
+                sgr.verifyOneShot(ByteBuffer.wrap(TEST_MSG), TEST_MSG_SIG),
+                is(true));
+    }
+
+    @Test
+    public void testCloneInitializedEngine() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+        sgr.update(TEST_MSG, 0, 10);
+
+        EdDSAEngine copy = (EdDSAEngine) sgr.clone();
+        copy.update(TEST_MSG, 10, TEST_MSG.length - 10);
+        assertThat("clone did not sign its message", copy.sign(), is(equalTo(TEST_MSG_SIG)));
+        assertThat("clone changed original", sgr.sign(), is(equalTo(sgr.signOneShot(Arrays.copyOf(TEST_MSG, 10)))));
+
+        // Both engines remain initialized and independent
+        copy.update(TEST_MSG);
+        sgr.update(TEST_MSG);
+        assertThat(copy.sign(), is(equalTo(TEST_MSG_SIG)));
+        assertThat(sgr.sign(), is(equalTo(TEST_MSG_SIG)));
+
+        EdDSAEngine vrf = new EdDSAEngine();
+        vrf.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec)));
+        EdDSAEngine vrfCopy = (EdDSAEngine) vrf.clone();
+        vrfCopy.update(TEST_MSG);
+        assertThat("clone of verifier failed", vrfCopy.verify(TEST_MSG_SIG), is(true));
+    }
+
+    @Test
+    public void testSignAndVerifyFile() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        EdDSAEngine vrf = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+        vrf.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec)));
+
+        File f = tmp.newFile();
+        Files.write(f.toPath(), TEST_MSG);
+        assertThat("signOneShot(Path) failed", sgr.signOneShot(f.toPath()), is(equalTo(TEST_MSG_SIG)));
+        assertThat("verifyOneShot(Path) failed", vrf.verifyOneShot(f.toPath(), TEST_MSG_SIG), is(true));
+
+        Files.write(f.toPath(), new byte[0]);
+        byte[] emptySig = sgr.signOneShot(new byte[0]);
+        try (FileChannel channel = FileChannel.open(f.toPath())) {
+            assertThat("signOneShot(FileChannel) of empty file failed", sgr.signOneShot(channel), is(emptySig));
+            assertThat("verifyOneShot(FileChannel) failed", vrf.verifyOneShot(channel, emptySig), is(true));
+            assertThat("wrong file verified", vrf.verifyOneShot(channel, TEST_MSG_SIG), is(false));
+        }
+    }
+
+    @Test
+    public void testSignAndVerifyFileSpanningSeveralRegions() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec));
+        EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec));
+        Random random = new Random(29);
+        File f = tmp.newFile();
+
+        for (EdDSAEngine sgr : new EdDSAEngine[] {new EdDSAEngine(), EdDSAEngine.ed25519ph()}) {
+            sgr.mapChunkSize = 4096;
+            // region boundaries inside the data, one exactly at the end, and a short last region
+            for (int size : new int[] {4097, 3 * 4096, 3 * 4096 + 1000}) {
+                byte[] data = new byte[size];
+                random.nextBytes(data);
+                Files.write(f.toPath(), data);
+
+                sgr.initSign(priv);
+                byte[] expected = sgr.signOneShot(data);
+                String name = sgr.getAlgorithm() + " of " + size + " bytes";
+                assertThat(name + " signed differently", sgr.signOneShot(f.toPath()), is(equalTo(expected)));
+
+                sgr.initVerify(pub);
+                assertThat(name + " failed to verify", sgr.verifyOneShot(f.toPath(), expected), is(true));
+                data[4096] ^= 1;
+                Files.write(f.toPath(), data);
+                assertThat(name + " verified after change", sgr.verifyOneShot(f.toPath(), expected), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void testVerifyRejectsNonCanonicalS() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAPublicKeySpec pubKey = new EdDSAPublicKeySpec(TEST_PK, spec);
+        EdDSAEngine sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initVerify(new EdDSAPublicKey(pubKey));
+
+        // S + L is congruent to S, but must be rejected as non-canonical
+        byte[] sig = TEST_MSG_SIG.clone();
+        int carry = 0;
+        byte[] l = Utils.hexToBytes("edd3f55c1a631258d69cf7a2def9de1400000000000000000000000000000010");
+        for (int i = 0; i < 32; i++) {
+            int sum = (sig[32 + i] & 0xff) + (l[i] & 0xff) + carry;
+            sig[32 + i] = (byte) sum;
+            carry = sum >> 8;
+        }
+        assertThat("S + L accepted", sgr.verifyOneShot(TEST_MSG, sig), is(false));
+        assertThat("verify failed after rejection", sgr.verifyOneShot(TEST_MSG, TEST_MSG_SIG), is(true));
+    }
+
+    @Test
+    public void testSpilledMessageSignsLikeOneShot() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.spillThreshold = 4096;
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+
+        byte[] message = new byte[100_000];
+        new Random(1).nextBytes(message);
+        for (int off = 0; off < message.length; off += 1000) {
+            sgr.update(message, off, 1000);
+        }
+        byte[] sig = sgr.sign();
+        assertThat(sig, is(equalTo(sgr.signOneShot(message))));
+
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec)));
+        sgr.update(ByteBuffer.wrap(message));
+        assertThat(sgr.verify(sig), is(true));
+    }
+
+    @Test
+    public void testVerifyAllocationIndependentOfMessageLength() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine signer = new EdDSAEngine();
+        signer.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PK, spec)));
+
+        byte[] small = new byte[16];
+        byte[] large = new byte[1 << 20];
+        byte[] smallSig = signer.signOneShot(small);
+        byte[] largeSig = signer.signOneShot(large);
+
+        long smallBytes = allocatedPerVerify(mx, sgr, small, smallSig);
+        long largeBytes = allocatedPerVerify(mx, sgr, large, largeSig);
+
+        // The streamed message must be hashed in place, not copied.
+        assertThat("verify() copies the message", largeBytes - smallBytes, is(lessThan((long) large.length / 4)));
+    }
+
+    private static long allocatedPerVerify(
+            com.sun.management.ThreadMXBean mx, EdDSAEngine sgr, byte[] msg, byte[] sig) throws Exception {
+        final int rounds = 20;
+        long tid = Thread.currentThread().getId();
+        long total = 0;
+        for (int i = 0; i < 2 * rounds; i++) {
+            sgr.update(msg);
+            long before = mx.getThreadAllocatedBytes(tid);
+            assertThat(sgr.verify(sig), is(true));
+            if (i >= rounds) total += mx.getThreadAllocatedBytes(tid) - before;
+        }
+        return total / rounds;
+    }
+
+    @Test
+    public void testSignEd25519ph() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Signature sgr = EdDSAEngine.ed25519ph();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_PH_SEED, spec)));
+
+        for (byte b : TEST_PH_MSG) sgr.update(b);
+        assertThat("Ed25519ph sign failed", sgr.sign(), is(equalTo(TEST_PH_SIG)));
+
+        // Second usage
+        sgr.update(TEST_PH_MSG);
+        assertThat("Second Ed25519ph sign failed", sgr.sign(), is(equalTo(TEST_PH_SIG)));
+    }
+
+    @Test
+    public void testVerifyEd25519ph() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = EdDSAEngine.ed25519ph();
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_PH_PK, spec)));
+
+        sgr.update(TEST_PH_MSG, 0, 1);
+        sgr.update(TEST_PH_MSG, 1, 2);
+        assertThat("Ed25519ph verify failed", sgr.verify(TEST_PH_SIG), is(true));
+        assertThat("Ed25519ph verifyOneShot failed", sgr.verifyOneShot(TEST_PH_MSG, TEST_PH_SIG), is(true));
+        assertThat("Ed25519ph accepted pure signature", sgr.verifyOneShot(TEST_MSG, TEST_MSG_SIG), is(false));
+    }
+
+    @Test
+    public void testSignEd25519ctx() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = EdDSAEngine.ed25519ctx();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_CTX_SEED, spec)));
+        sgr.setParameter(new EdDSAContextSpec(TEST_CTX_CONTEXT));
+
+        assertThat("Ed25519ctx sign failed", sgr.signOneShot(TEST_CTX_MSG), is(equalTo(TEST_CTX_SIG)));
+    }
+
+    @Test
+    public void testVerifyEd25519ctx() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = EdDSAEngine.ed25519ctx();
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(TEST_CTX_PK, spec)));
+        sgr.setParameter(new EdDSAContextSpec(TEST_CTX_CONTEXT));
+
+        sgr.update(TEST_CTX_MSG);
+        assertThat("Ed25519ctx verify failed", sgr.verify(TEST_CTX_SIG), is(true));
+
+        sgr.setParameter(new EdDSAContextSpec("bar".getBytes(Charset.forName("UTF-8"))));
+        assertThat("Ed25519ctx ignored context", sgr.verifyOneShot(TEST_CTX_MSG, TEST_CTX_SIG), is(false));
+    }
+
+    @Test
+    public void testEd25519ctxRequiresContext() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        EdDSAEngine sgr = EdDSAEngine.ed25519ctx();
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_CTX_SEED, spec)));
+
+        exception.expect(SignatureException.class);
+        exception.expectMessage("requires a non-empty context");
+        sgr.signOneShot(TEST_CTX_MSG);
+    }
+
+    @Test
+    public void testVariantsMatchJdk() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Random random = new Random(27);
+        byte[] seed = new byte[32];
+        random.nextBytes(seed);
+        byte[] msg = new byte[1000];
+        random.nextBytes(msg);
+        byte[] context = "jenkins".getBytes(Charset.forName("UTF-8"));
+        EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, spec));
+        EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(priv.getA(), spec));
+        PrivateKey jdkPriv = KeyFactory.getInstance("Ed25519", "SunEC")
+                .generatePrivate(new EdECPrivateKeySpec(NamedParameterSpec.ED25519, seed));
+
+        EdDSAEngine[] ours = {new EdDSAEngine(), EdDSAEngine.ed25519ph(), EdDSAEngine.ed25519ctx()};
+        java.security.spec.EdDSAParameterSpec[] theirs = {
+            new java.security.spec.EdDSAParameterSpec(false),
+            new java.security.spec.EdDSAParameterSpec(true),
+            new java.security.spec.EdDSAParameterSpec(false, context)
+        };
+        for (int i = 0; i < ours.length; i++) {
+            Signature jdk = Signature.getInstance("Ed25519", "SunEC");
+            jdk.initSign(jdkPriv);
+            jdk.setParameter(theirs[i]);
+            jdk.update(msg);
+            byte[] expected = jdk.sign();
+
+            ours[i].initSign(priv);
+            if (i == 2) ours[i].setParameter(new EdDSAContextSpec(context));
+            ours[i].update(msg);
+            assertThat(ours[i].getAlgorithm() + " differs from SunEC", ours[i].sign(), is(equalTo(expected)));
+
+            ours[i].initVerify(pub);
+            if (i == 2) ours[i].setParameter(new EdDSAContextSpec(context));
+            assertThat(ours[i].getAlgorithm() + " rejected SunEC", ours[i].verifyOneShot(msg, expected), is(true));
+        }
+    }
+
+    @Test
+    public void testContextUnsupportedForPureEdDSA() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        Signature sgr = new EdDSAEngine(MessageDigest.getInstance(spec.getHashAlgorithm()));
+        sgr.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(TEST_SEED, spec)));
+
+        exception.expect(InvalidAlgorithmParameterException.class);
+        exception.expectMessage("context not supported");
+        sgr.setParameter(new EdDSAContextSpec(TEST_CTX_CONTEXT));
+    }
+
     @Test
     public void testVerifyX509PublicKeyInfo() throws Exception {
         EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName("Ed25519");
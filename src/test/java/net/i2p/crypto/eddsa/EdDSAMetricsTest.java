@@ -0,0 +1,79 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class EdDSAMetricsTest {
+
+    @Test
+    public void testTimerQuantiles() {
+        EdDSAMetrics.Timer timer = new EdDSAMetrics.Timer();
+        assertThat(timer.getQuantileNanos(0.5), is(0L));
+        for (int i = 0; i < 99; i++) timer.record(1000);
+        timer.record(1000000);
+
+        assertThat(timer.getCount(), is(100L));
+        assertThat(timer.getTotalNanos(), is(99L * 1000 + 1000000));
+        assertThat(timer.getMeanNanos(), is((99L * 1000 + 1000000) / 100));
+        // 1000 falls in [512, 1024), 1000000 in [2^19, 2^20)
+        assertThat(timer.getQuantileNanos(0.5), is(1023L));
+        assertThat(timer.getQuantileNanos(0.99), is(1023L));
+        assertThat(timer.getQuantileNanos(1.0), is((1L << 20) - 1));
+
+        timer.record(10, 10 * 1000);
+        assertThat(timer.getCount(), is(110L));
+        assertThat(timer.getQuantileNanos(0.9), is(1023L));
+    }
+
+    @Test
+    public void testOperationsAreCounted() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        long signs = EdDSAMetrics.sign().getCount();
+        long verifies = EdDSAMetrics.verify().getCount();
+        long failures = EdDSAMetrics.getVerifyFailures();
+        long decodes = EdDSAMetrics.keyDecode().getCount();
+        long derives = EdDSAMetrics.keyDerive().getCount();
+        long hits = EdDSAMetrics.getCacheHits();
+
+        EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, spec));
+        EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, spec));
+        EdDSAEngine engine = new EdDSAEngine();
+        engine.initSign(priv);
+        byte[] sig = engine.signOneShot(EdDSAEngineTest.TEST_MSG);
+        engine.initVerify(pub);
+        engine.verifyOneShot(EdDSAEngineTest.TEST_MSG, sig);
+        engine.verifyOneShot(new byte[1], sig);
+        Ed25519VerificationCache cache = new Ed25519VerificationCache(4, 1, TimeUnit.HOURS);
+        cache.verify(pub, EdDSAEngineTest.TEST_MSG, sig);
+        cache.verify(pub, EdDSAEngineTest.TEST_MSG, sig);
+
+        // Other tests may run concurrently, so only check for increases
+        assertThat(EdDSAMetrics.sign().getCount(), is(greaterThanOrEqualTo(signs + 1)));
+        assertThat(EdDSAMetrics.verify().getCount(), is(greaterThanOrEqualTo(verifies + 3)));
+        assertThat(EdDSAMetrics.getVerifyFailures(), is(greaterThanOrEqualTo(failures + 1)));
+        assertThat(EdDSAMetrics.keyDecode().getCount(), is(greaterThanOrEqualTo(decodes + 1)));
+        assertThat(EdDSAMetrics.keyDerive().getCount(), is(greaterThanOrEqualTo(derives + 1)));
+        assertThat(EdDSAMetrics.getCacheHits(), is(greaterThanOrEqualTo(hits + 1)));
+        assertThat(EdDSAMetrics.sign().getTotalNanos(), is(greaterThan(0L)));
+    }
+}
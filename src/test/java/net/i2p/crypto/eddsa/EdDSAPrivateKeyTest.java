@@ -15,6 +15,12 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
 
 import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
 import org.junit.Test;
 
@@ -79,4 +85,31 @@ public class EdDSAPrivateKeyTest {
         // Check
         assertThat(keyOut.getEncoded(), is(equalTo(TEST_PRIVKEY)));
     }
+
+    @Test
+    public void testPublicKeyDerivedOnFirstUse() throws Exception {
+        byte[] pk = Utils.hexToBytes("19bf44096984cdfe8541bac167dc3b96c85086aa30b6b6cb0c5c38ad703166e1");
+        final EdDSAPrivateKey key = new EdDSAPrivateKey(new PKCS8EncodedKeySpec(TEST_PRIVKEY));
+
+        // Several threads racing to derive it all see the same key
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() {
+                        return key.getAbyte();
+                    }
+                }));
+            }
+            for (Future<byte[]> result : results) {
+                assertThat(result.get(), is(equalTo(pk)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(key.getAbyte(), is(sameInstance(key.getAbyte())));
+        assertThat(key.getA().toByteArray(), is(equalTo(pk)));
+    }
 }
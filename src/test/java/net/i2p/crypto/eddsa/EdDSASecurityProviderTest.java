@@ -11,9 +11,15 @@
  */
 package net.i2p.crypto.eddsa;
 
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
 import java.security.KeyFactory;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchProviderException;
+import java.security.Provider;
 import java.security.Security;
 import java.security.Signature;
 import org.junit.Rule;
@@ -36,10 +42,36 @@ public class EdDSASecurityProviderTest {
         KeyPairGenerator keyGen = KeyPairGenerator.getInstance("EdDSA", "EdDSA");
         KeyFactory keyFac = KeyFactory.getInstance("EdDSA", "EdDSA");
         Signature sgr = Signature.getInstance("NONEwithEdDSA", "EdDSA");
+        Signature sgrPh = Signature.getInstance("Ed25519ph", "EdDSA");
+        Signature sgrCtx = Signature.getInstance("Ed25519ctx", "EdDSA");
 
         Security.removeProvider("EdDSA");
     }
 
+    @Test
+    public void servicesCreateEnginesAndResolveAliases() throws Exception {
+        Provider provider = new EdDSASecurityProvider();
+
+        assertThat(Signature.getInstance("Ed25519", provider).getAlgorithm(), is("Ed25519"));
+        assertThat(Signature.getInstance("OID.1.3.101.112", provider).getProvider(), is(sameInstance(provider)));
+        assertThat(KeyFactory.getInstance("Ed25519", provider).getAlgorithm(), is("Ed25519"));
+        assertThat(KeyPairGenerator.getInstance("1.3.101.112", provider).getAlgorithm(), is("1.3.101.112"));
+
+        assertThat(provider.getService("Signature", "Ed25519").newInstance(null), is(instanceOf(EdDSAEngine.class)));
+        assertThat(
+                ((Signature) provider.getService("Signature", "Ed25519ph").newInstance(null)).getAlgorithm(),
+                is(EdDSAEngine.ED25519PH_ALGORITHM));
+        assertThat(
+                ((Signature) provider.getService("Signature", "Ed25519ctx").newInstance(null)).getAlgorithm(),
+                is(EdDSAEngine.ED25519CTX_ALGORITHM));
+        assertThat(
+                provider.getService("KeyFactory", "Ed25519").newInstance(null),
+                is(instanceOf(net.i2p.crypto.eddsa.KeyFactory.class)));
+        assertThat(
+                provider.getService("KeyPairGenerator", "EdDSA").newInstance(null),
+                is(instanceOf(net.i2p.crypto.eddsa.KeyPairGenerator.class)));
+    }
+
     @Test
     public void cannotGetInstancesWhenProviderIsNotPresent() throws Exception {
         exception.expect(NoSuchProviderException.class);
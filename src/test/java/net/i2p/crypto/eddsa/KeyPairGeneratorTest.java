@@ -0,0 +1,81 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.security.KeyPair;
+import java.security.SecureRandom;
+import java.util.HashSet;
+import java.util.Set;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import org.junit.Test;
+
+public class KeyPairGeneratorTest {
+
+    /**
+     * Returns 0, 1, 2, ... so that runs can be compared.
+     */
+    static final class CountingRandom extends SecureRandom {
+        private static final long serialVersionUID = 1L;
+        private byte next;
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            for (int i = 0; i < bytes.length; i++) bytes[i] = next++;
+        }
+    }
+
+    @Test
+    public void testBulkMatchesSingleGeneration() throws Exception {
+        KeyPairGenerator bulk = new KeyPairGenerator();
+        bulk.initialize(256, new CountingRandom());
+        KeyPairGenerator single = new KeyPairGenerator();
+        single.initialize(256, new CountingRandom());
+
+        KeyPair[] pairs = bulk.generateKeyPairs(70);
+        assertThat(pairs.length, is(70));
+        for (KeyPair pair : pairs) {
+            KeyPair expected = single.generateKeyPair();
+            assertThat(pair.getPrivate(), is(equalTo(expected.getPrivate())));
+            assertThat(pair.getPublic(), is(equalTo(expected.getPublic())));
+            assertThat(
+                    ((EdDSAPrivateKey) pair.getPrivate()).getAbyte(),
+                    is(equalTo(((EdDSAPublicKey) pair.getPublic()).getAbyte())));
+        }
+    }
+
+    @Test
+    public void testBulkWithDefaultRandom() throws Exception {
+        KeyPair[] pairs = new KeyPairGenerator().generateKeyPairs(100);
+        Set<EdDSAPublicKey> keys = new HashSet<EdDSAPublicKey>();
+        for (KeyPair pair : pairs) {
+            EdDSAPrivateKey priv = (EdDSAPrivateKey) pair.getPrivate();
+            EdDSAPublicKey pub = (EdDSAPublicKey) pair.getPublic();
+            EdDSAPrivateKey derived = new EdDSAPrivateKey(
+                    new EdDSAPrivateKeySpec(priv.getSeed(), EdDSANamedCurveTable.ED_25519_CURVE_SPEC));
+            assertThat(pub.getAbyte(), is(equalTo(derived.getAbyte())));
+            keys.add(pub);
+
+            EdDSAEngine engine = new EdDSAEngine();
+            engine.initSign(priv);
+            byte[] sig = engine.signOneShot(EdDSAEngineTest.TEST_MSG);
+            engine.initVerify(pub);
+            assertThat(engine.verifyOneShot(EdDSAEngineTest.TEST_MSG, sig), is(true));
+        }
+        assertThat("duplicate keys generated", keys.size(), is(100));
+        assertThat(new KeyPairGenerator().generateKeyPairs(0).length, is(0));
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import net.i2p.crypto.eddsa.spec.EdDSAContextSpec;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that delegating to the JDK gives exactly the same results.
+ */
+public class NativeEd25519Test {
+    static final EdDSAParameterSpec ed25519 = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+
+    @Before
+    public void forceNative() {
+        NativeEd25519.forced = Boolean.TRUE;
+        EdDSAPublicKey pk = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, ed25519));
+        assumeTrue("JDK has no Ed25519", NativeEd25519.toNative(pk) != null);
+    }
+
+    @After
+    public void unforce() {
+        NativeEd25519.forced = null;
+    }
+
+    private static EdDSAEngine engine(boolean nativeMode) throws Exception {
+        EdDSAEngine engine = new EdDSAEngine();
+        engine.nativeMode = nativeMode;
+        return engine;
+    }
+
+    @Test
+    public void testSignAndVerifyTestVectors() throws Exception {
+        EdDSAEngine engine = engine(true);
+        for (Ed25519TestVectors.TestTuple testCase : Ed25519TestVectors.testCases) {
+            engine.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(testCase.seed, ed25519)));
+            assertThat(
+                    "Test case " + testCase.caseNum + " failed",
+                    engine.signOneShot(testCase.message),
+                    is(equalTo(testCase.sig)));
+            engine.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(testCase.pk, ed25519)));
+            assertThat(
+                    "Test case " + testCase.caseNum + " failed",
+                    engine.verifyOneShot(testCase.message, testCase.sig),
+                    is(true));
+        }
+    }
+
+    @Test
+    public void testEd25519ctx() throws Exception {
+        EdDSAEngine engine = EdDSAEngine.ed25519ctx();
+        engine.setParameter(EdDSAEngine.NATIVE_MODE);
+        engine.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_CTX_SEED, ed25519)));
+        engine.setParameter(new EdDSAContextSpec(EdDSAEngineTest.TEST_CTX_CONTEXT));
+        engine.update(EdDSAEngineTest.TEST_CTX_MSG);
+        assertThat(engine.sign(), is(equalTo(EdDSAEngineTest.TEST_CTX_SIG)));
+
+        engine.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_CTX_PK, ed25519)));
+        engine.setParameter(new EdDSAContextSpec(EdDSAEngineTest.TEST_CTX_CONTEXT));
+        engine.update(EdDSAEngineTest.TEST_CTX_MSG);
+        assertThat(engine.verify(EdDSAEngineTest.TEST_CTX_SIG), is(true));
+    }
+
+    @Test
+    public void testVerifyCorruptedSignaturesLikeJava() throws Exception {
+        EdDSAEngine ours = engine(false);
+        EdDSAEngine jdk = engine(true);
+        Random rnd = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            byte[] seed = new byte[32];
+            rnd.nextBytes(seed);
+            EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(seed, ed25519));
+            EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(priv.getA(), ed25519));
+            byte[] msg = new byte[rnd.nextInt(100)];
+            rnd.nextBytes(msg);
+            ours.initSign(priv);
+            byte[] sig = ours.signOneShot(msg);
+            jdk.initSign(priv);
+            assertThat(jdk.signOneShot(msg), is(equalTo(sig)));
+
+            // Flip one bit in R or S, or none
+            int bit = rnd.nextInt(600);
+            if (bit < 512) sig[bit / 8] ^= (byte) (1 << (bit % 8));
+            ours.initVerify(pub);
+            jdk.initVerify(pub);
+            assertThat("case " + i, jdk.verifyOneShot(msg, sig), is(ours.verifyOneShot(msg, sig)));
+        }
+    }
+
+    @Test
+    public void testVerifyNonCanonicalRLikeJava() throws Exception {
+        // r = 0, so R is the identity, which is encoded as y = p + 1 instead of y = 1
+        EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, ed25519));
+        EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, ed25519));
+        byte[] R = Utils.hexToBytes("eeffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff7f");
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        md.update(R);
+        md.update(priv.getAbyte());
+        md.update(EdDSAEngineTest.TEST_MSG);
+        byte[] h = ed25519.getScalarOps().reduce(md.digest());
+        byte[] S = ed25519.getScalarOps().multiplyAndAdd(h, priv.geta(), new byte[32]);
+        byte[] sig = new byte[64];
+        System.arraycopy(R, 0, sig, 0, 32);
+        System.arraycopy(S, 0, sig, 32, 32);
+
+        EdDSAEngine ours = engine(false);
+        EdDSAEngine jdk = engine(true);
+        ours.initVerify(pub);
+        jdk.initVerify(pub);
+        assertThat(
+                jdk.verifyOneShot(EdDSAEngineTest.TEST_MSG, sig),
+                is(ours.verifyOneShot(EdDSAEngineTest.TEST_MSG, sig)));
+    }
+
+    @Test
+    public void testOwnImplementationUntilSelected() throws Exception {
+        NativeEd25519.forced = null;
+        assertThat(NativeEd25519.preferForSigning(), is(false));
+        assertThat(NativeEd25519.preferForVerifying(), is(false));
+
+        NativeEd25519.select();
+        EdDSAEngine engine = engine(true);
+        engine.initSign(new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, ed25519)));
+        assertThat(engine.signOneShot(EdDSAEngineTest.TEST_MSG), is(equalTo(EdDSAEngineTest.TEST_MSG_SIG)));
+        engine.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(EdDSAEngineTest.TEST_PK, ed25519)));
+        assertThat(engine.verifyOneShot(EdDSAEngineTest.TEST_MSG, EdDSAEngineTest.TEST_MSG_SIG), is(true));
+    }
+
+    @Test
+    public void testKeyWithoutSeedFallsBack() throws Exception {
+        EdDSAPrivateKey seeded = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, ed25519));
+        EdDSAPrivateKey fromHash = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(ed25519, seeded.getH().clone()));
+        EdDSAEngine engine = engine(true);
+        engine.initSign(fromHash);
+        assertThat(engine.signOneShot(EdDSAEngineTest.TEST_MSG), is(equalTo(EdDSAEngineTest.TEST_MSG_SIG)));
+    }
+}
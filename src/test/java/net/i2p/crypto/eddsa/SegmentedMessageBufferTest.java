@@ -0,0 +1,94 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Random;
+import org.junit.Test;
+
+public class SegmentedMessageBufferTest {
+
+    /**
+     * Writes the same random data to the buffer with each kind of write and
+     * returns it.
+     */
+    private static byte[] fill(SegmentedMessageBuffer buf, int total) throws Exception {
+        Random rnd = new Random(total);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        while (expected.size() < total) {
+            byte[] chunk = new byte[rnd.nextInt(5000)];
+            rnd.nextBytes(chunk);
+            switch (rnd.nextInt(4)) {
+                case 0:
+                    buf.write(chunk, 0, chunk.length);
+                    break;
+                case 1:
+                    buf.write(ByteBuffer.wrap(chunk));
+                    break;
+                case 2:
+                    ByteBuffer direct = ByteBuffer.allocateDirect(chunk.length);
+                    direct.put(chunk).flip();
+                    buf.write(direct);
+                    break;
+                default:
+                    for (byte b : chunk) buf.write(b);
+            }
+            expected.write(chunk);
+        }
+        return expected.toByteArray();
+    }
+
+    private static byte[] digest(SegmentedMessageBuffer buf) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-512");
+        buf.writeTo(md);
+        return md.digest();
+    }
+
+    @Test
+    public void testInMemory() throws Exception {
+        SegmentedMessageBuffer buf = new SegmentedMessageBuffer(-1);
+        byte[] expected = fill(buf, 300_000);
+        assertThat(buf.isSpilled(), is(false));
+        assertThat(buf.size(), is((long) expected.length));
+        assertThat(digest(buf), is(equalTo(MessageDigest.getInstance("SHA-512").digest(expected))));
+    }
+
+    @Test
+    public void testSpillsBeyondThreshold() throws Exception {
+        SegmentedMessageBuffer buf = new SegmentedMessageBuffer(10_000);
+        byte[] expected = fill(buf, 300_000);
+        assertThat(buf.isSpilled(), is(true));
+        assertThat(buf.size(), is((long) expected.length));
+        byte[] want = MessageDigest.getInstance("SHA-512").digest(expected);
+        // Signing reads the message twice
+        assertThat(digest(buf), is(equalTo(want)));
+        assertThat(digest(buf), is(equalTo(want)));
+
+        SegmentedMessageBuffer copy = new SegmentedMessageBuffer(buf);
+        assertThat(copy.isSpilled(), is(true));
+        assertThat(digest(copy), is(equalTo(want)));
+
+        buf.reset();
+        assertThat(buf.isSpilled(), is(false));
+        assertThat(buf.size(), is(0L));
+        byte[] again = fill(buf, 5_000);
+        assertThat(digest(buf), is(equalTo(MessageDigest.getInstance("SHA-512").digest(again))));
+        // The copy is independent of the original
+        assertThat(digest(copy), is(equalTo(want)));
+        copy.reset();
+    }
+}
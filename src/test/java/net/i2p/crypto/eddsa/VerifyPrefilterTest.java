@@ -0,0 +1,138 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import net.i2p.crypto.eddsa.EdDSAMetrics.Rejection;
+import net.i2p.crypto.eddsa.math.Curve;
+import net.i2p.crypto.eddsa.math.GroupElement;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class VerifyPrefilterTest {
+    static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+    static final byte[] IDENTITY = Utils.hexToBytes("0100000000000000000000000000000000000000000000000000000000000000");
+    static final byte[] ORDER_8 = Utils.hexToBytes("26e8958fc2b227b045c3f489f2ef98f0d5dfac05d3c63339b13802886d53fc05");
+    static final byte[] ORDER_8_OTHER =
+            Utils.hexToBytes("c7176a703d4dd84fba3c0b760d10670f2a2053fa2c39ccc64ec7fd7792ac037a");
+
+    private static byte[] encode(BigInteger y) {
+        byte[] be = y.toByteArray();
+        byte[] le = new byte[32];
+        for (int i = 0; i < Math.min(32, be.length); i++) {
+            le[i] = be[be.length - 1 - i];
+        }
+        return le;
+    }
+
+    private static byte[] withSignBit(byte[] e) {
+        byte[] copy = e.clone();
+        copy[31] |= (byte) 0x80;
+        return copy;
+    }
+
+    private static byte[] times(GroupElement p, int doublings) {
+        for (int i = 0; i < doublings; i++) {
+            p = p.dbl().toP3();
+        }
+        return p.toByteArray();
+    }
+
+    @Test
+    public void testBlocklistedPointsHaveOrderEight() {
+        Curve curve = EdDSANamedCurveTable.ED_25519_CURVE_SPEC.getCurve();
+        for (byte[] e : new byte[][] {ORDER_8, ORDER_8_OTHER}) {
+            GroupElement p = new GroupElement(curve, e);
+            assertThat(times(p, 2), is(not(equalTo(IDENTITY))));
+            assertThat(times(p, 3), is(equalTo(IDENTITY)));
+            assertThat(VerifyPrefilter.hasSmallOrder(e, 0), is(true));
+            assertThat(VerifyPrefilter.hasSmallOrder(withSignBit(e), 0), is(true));
+        }
+        assertThat(VerifyPrefilter.hasSmallOrder(IDENTITY, 0), is(true));
+        assertThat(VerifyPrefilter.hasSmallOrder(encode(P.subtract(BigInteger.ONE)), 0), is(true));
+        assertThat(VerifyPrefilter.hasSmallOrder(EdDSAEngineTest.TEST_PK, 0), is(false));
+    }
+
+    @Test
+    public void testCanonicalPoint() {
+        assertThat(VerifyPrefilter.isCanonicalPoint(encode(P.subtract(BigInteger.ONE)), 0), is(true));
+        assertThat(VerifyPrefilter.isCanonicalPoint(EdDSAEngineTest.TEST_PK, 0), is(true));
+        for (int i = 0; i < 19; i++) {
+            byte[] e = encode(P.add(BigInteger.valueOf(i)));
+            assertThat(VerifyPrefilter.isCanonicalPoint(e, 0), is(false));
+            assertThat(VerifyPrefilter.isCanonicalPoint(withSignBit(e), 0), is(false));
+        }
+    }
+
+    @Test
+    public void testValidSignaturePasses() {
+        assertThat(VerifyPrefilter.check(EdDSAEngineTest.TEST_MSG_SIG, 0, EdDSAEngineTest.TEST_PK), is(nullValue()));
+    }
+
+    private static boolean verify(byte[] pk, byte[] sig) throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initVerify(new EdDSAPublicKey(new EdDSAPublicKeySpec(pk, spec)));
+        return sgr.verifyOneShot(EdDSAEngineTest.TEST_MSG, sig);
+    }
+
+    private static void assertRejected(byte[] pk, byte[] sig, Rejection reason) throws Exception {
+        assertThat(VerifyPrefilter.check(sig, 0, pk), is(reason));
+        long before = EdDSAMetrics.getRejections(reason);
+        long failures = EdDSAMetrics.getVerifyFailures();
+        assertThat(verify(pk, sig), is(false));
+        assertThat(EdDSAMetrics.getRejections(reason), is(before + 1));
+        assertThat(EdDSAMetrics.getVerifyFailures(), is(failures + 1));
+    }
+
+    @Test
+    public void testEngineCountsRejections() throws Exception {
+        byte[] pk = EdDSAEngineTest.TEST_PK;
+        byte[] sig = EdDSAEngineTest.TEST_MSG_SIG;
+
+        byte[] bigS = sig.clone();
+        bigS[63] = (byte) 0xff;
+        assertRejected(pk, bigS, Rejection.NON_CANONICAL_S);
+
+        byte[] badR = sig.clone();
+        System.arraycopy(encode(P.add(BigInteger.ONE)), 0, badR, 0, 32);
+        assertRejected(pk, badR, Rejection.NON_CANONICAL_R);
+
+        byte[] smallR = sig.clone();
+        System.arraycopy(ORDER_8, 0, smallR, 0, 32);
+        assertRejected(pk, smallR, Rejection.SMALL_ORDER_R);
+
+        assertRejected(IDENTITY, sig, Rejection.SMALL_ORDER_A);
+        // EdDSAPublicKey re-encodes the decoded point, so only the filter itself sees a non-canonical A
+        assertThat(VerifyPrefilter.check(sig, 0, encode(P.add(BigInteger.ONE))), is(Rejection.NON_CANONICAL_A));
+
+        assertThat(verify(pk, sig), is(true));
+    }
+
+    @Test
+    public void testSignaturesMadeHereAreNotRejected() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.ED_25519_CURVE_SPEC;
+        EdDSAPrivateKey key = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(EdDSAEngineTest.TEST_SEED, spec));
+        EdDSAEngine sgr = new EdDSAEngine();
+        sgr.initSign(key);
+        for (int i = 0; i < 100; i++) {
+            byte[] sig = sgr.signOneShot(new byte[] {(byte) i});
+            assertThat(VerifyPrefilter.check(sig, 0, key.getAbyte()), is(nullValue()));
+        }
+    }
+}
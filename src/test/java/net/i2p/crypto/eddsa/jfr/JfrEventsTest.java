@@ -0,0 +1,116 @@
+/**
+ * EdDSA-Java by str4d
+ *
+ * To the extent possible under law, the person who associated CC0 with
+ * EdDSA-Java has waived all copyright and related or neighboring rights
+ * to EdDSA-Java.
+ *
+ * You should have received a copy of the CC0 legalcode along with this
+ * work. If not, see <https://creativecommons.org/publicdomain/zero/1.0/>.
+ *
+ */
+package net.i2p.crypto.eddsa.jfr;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import net.i2p.crypto.eddsa.Ed25519VerificationCache;
+import net.i2p.crypto.eddsa.EdDSAEngine;
+import net.i2p.crypto.eddsa.EdDSAPrivateKey;
+import net.i2p.crypto.eddsa.EdDSAPublicKey;
+import net.i2p.crypto.eddsa.Utils;
+import net.i2p.crypto.eddsa.spec.EdDSANamedCurveTable;
+import net.i2p.crypto.eddsa.spec.EdDSAParameterSpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPrivateKeySpec;
+import net.i2p.crypto.eddsa.spec.EdDSAPublicKeySpec;
+import org.junit.Test;
+
+public class JfrEventsTest {
+    private static final byte[] SEED =
+            Utils.hexToBytes("0000000000000000000000000000000000000000000000000000000000000000");
+    private static final byte[] PK =
+            Utils.hexToBytes("3b6a27bcceb6a42d62a3a8d02a6f0d73653215771de243a63ac048a18b59da29");
+    private static final byte[] MSG = "This is a secret message".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testOperationsAreRecorded() throws Exception {
+        EdDSAParameterSpec spec = EdDSANamedCurveTable.getByName(EdDSANamedCurveTable.ED_25519);
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            for (Class<? extends Event> c : List.of(
+                    SignEvent.class,
+                    VerifyEvent.class,
+                    KeyDecodeEvent.class,
+                    KeyDeriveEvent.class,
+                    PointDecompressionEvent.class,
+                    VerificationCacheEvent.class)) {
+                recording.enable(c).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            EdDSAPrivateKey priv = new EdDSAPrivateKey(new EdDSAPrivateKeySpec(SEED, spec));
+            EdDSAPublicKey pub = new EdDSAPublicKey(new EdDSAPublicKeySpec(PK, spec));
+            EdDSAEngine engine = new EdDSAEngine();
+            engine.initSign(priv);
+            byte[] sig = engine.signOneShot(MSG);
+            engine.initVerify(pub);
+            assertThat(engine.verifyOneShot(MSG, sig), is(true));
+            sig[0] ^= 1;
+            assertThat(engine.verifyOneShot(MSG, sig), is(false));
+
+            Ed25519VerificationCache cache = new Ed25519VerificationCache(16, 1, TimeUnit.MINUTES);
+            sig[0] ^= 1;
+            cache.verify(pub, MSG, sig);
+            cache.verify(pub, MSG, sig);
+
+            recording.stop();
+            Path file = Files.createTempFile("eddsa", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.delete(file);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        int valid = 0, invalid = 0, hits = 0, misses = 0;
+        for (RecordedEvent e : events) {
+            String name = e.getEventType().getName();
+            names.add(name);
+            if (name.equals("net.i2p.crypto.eddsa.Sign")) {
+                assertThat(e.getString("algorithm"), is("NONEwithEdDSA"));
+                assertThat(e.getLong("messageLength"), is((long) MSG.length));
+                assertThat(e.getInt("signatures"), is(1));
+            } else if (name.equals("net.i2p.crypto.eddsa.Verify")) {
+                assertThat(e.getLong("messageLength"), is((long) MSG.length));
+                if (e.getBoolean("valid")) valid++;
+                else invalid++;
+            } else if (name.equals("net.i2p.crypto.eddsa.VerificationCache")) {
+                if (e.getBoolean("hit")) hits++;
+                else misses++;
+            }
+        }
+        assertThat(names, hasItem("net.i2p.crypto.eddsa.Sign"));
+        assertThat(names, hasItem("net.i2p.crypto.eddsa.KeyDecode"));
+        assertThat(names, hasItem("net.i2p.crypto.eddsa.KeyDerive"));
+        assertThat(names, hasItem("net.i2p.crypto.eddsa.PointDecompression"));
+        assertThat(valid, greaterThanOrEqualTo(1));
+        assertThat(invalid, is(1));
+        assertThat(hits, is(1));
+        assertThat(misses, is(1));
+    }
+}
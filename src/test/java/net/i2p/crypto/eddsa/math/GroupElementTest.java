@@ -257,6 +257,27 @@ public class GroupElementTest {
         }
     }
 
+    @Test
+    public void toByteArraysReturnsSameAsToByteArray() {
+        // Arrange:
+        final GroupElement[] points = new GroupElement[17];
+        for (int i = 0; i < points.length; i++) {
+            // Scalar multiples have Z != 1, unlike random elements
+            final GroupElement p = ed25519.getB().scalarMultiply(MathUtils.getRandomByteArray(32));
+            points[i] = (i % 2 == 0) ? p : p.toP2();
+        }
+
+        // Act:
+        final byte[][] encoded = GroupElement.toByteArrays(points);
+
+        // Assert:
+        Assert.assertThat(encoded.length, IsEqual.equalTo(points.length));
+        for (int i = 0; i < points.length; i++) {
+            Assert.assertThat(encoded[i], IsEqual.equalTo(points[i].toByteArray()));
+        }
+        Assert.assertThat(GroupElement.toByteArrays(new GroupElement[0]).length, IsEqual.equalTo(0));
+    }
+
     // region toX where X is the representation
 
     /**
@@ -897,6 +918,37 @@ public class GroupElementTest {
         }
     }
 
+    @Test
+    public void multiScalarMultiplyVariableTimeReturnsExpectedResult() {
+        for (int i = 0; i < 5; i++) {
+            // Arrange: one point with a precomputed table and two without
+            final GroupElement basePoint = ed25519.getB();
+            final GroupElement[] g = {
+                MathUtils.getRandomGroupElement(true),
+                MathUtils.getRandomGroupElement(),
+                MathUtils.getRandomGroupElement()
+            };
+            final FieldElement[] f = {
+                MathUtils.getRandomFieldElement(), MathUtils.getRandomFieldElement(), MathUtils.getRandomFieldElement()
+            };
+            final FieldElement fb = MathUtils.getRandomFieldElement();
+            // a 128-bit scalar, as used for batch verification
+            final byte[] half = f[2].toByteArray();
+            Arrays.fill(half, 16, 32, (byte) 0);
+
+            // Act:
+            final GroupElement h1 = basePoint.multiScalarMultiplyVariableTime(
+                    g, new byte[][] {f[0].toByteArray(), f[1].toByteArray(), half}, fb.toByteArray());
+            GroupElement h2 = MathUtils.doubleScalarMultiplyGroupElements(basePoint, fb, g[0], f[0]);
+            h2 = MathUtils.addGroupElements(h2, MathUtils.scalarMultiplyGroupElement(g[1], f[1]));
+            h2 = MathUtils.addGroupElements(
+                    h2, MathUtils.scalarMultiplyGroupElement(g[2], MathUtils.getField().fromByteArray(half)));
+
+            // Assert:
+            Assert.assertThat(h1, IsEqual.equalTo(h2));
+        }
+    }
+
     // endregion
 
     /**